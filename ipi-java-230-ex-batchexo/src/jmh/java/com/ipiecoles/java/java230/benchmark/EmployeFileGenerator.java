@@ -0,0 +1,104 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Génère des fichiers d'employés synthétiques au format du CSV d'import.
+ * Un dixième des lignes sont des managers, les techniciens dépendent des managers déjà générés,
+ * et une proportion configurable de lignes reprend les erreurs du fichier de test du README.
+ * La graine est fixe : deux fichiers générés avec les mêmes paramètres sont identiques.
+ */
+public final class EmployeFileGenerator {
+
+    private static final long GRAINE = 42L;
+
+    private static final String[] NOMS = {"durand", "dupont", "aubert", "martin", "bernard", "petit", "lefèvre"};
+
+    private static final String[] PRENOMS = {"jacques", "pierre", "michel", "léa", "zoé", "hélène", "louis"};
+
+    // Lignes incorrectes du README, chacune levant une erreur différente //
+    private static final String[] LIGNES_ERRONEES = {
+            "XXXXXX,durand,jacques,04/06/2013,1200.5",
+            "M12,durand,jacques,04/06/2013,1200.5",
+            "M12345,durand,jacques,",
+            "M12345,durand,jacques,04/99/2013,1200.5",
+            "M12345,durand,jacques,04/06/2013,sdf",
+            "C12345,aubert,michel,05/09/2018,2200.5,150000.0",
+            "C12345,aubert,michel,05/09/2018,2200.5,xxx,100",
+            "C12345,aubert,michel,05/09/2018,2200.5,150000.0,xxx",
+            "T12345,dupont,pierre,12/03/XX,1700.5,5,M00001",
+            "T12345,dupont,pierre,12/03/2003,1700.5,9,M00001",
+            "T12345,dupont,pierre,12/03/2003,1700.5,X,M00001",
+            "T12345,dupont,pierre,12/03/2003,1700.5,5,xxx"
+    };
+
+    private EmployeFileGenerator() {
+    }
+
+    /**
+     * @param nbLignes le nombre de lignes à générer
+     * @param tauxErreur la proportion de lignes incorrectes, entre 0 et 1
+     * @return les lignes du fichier
+     */
+    public static List<String> genererLignes(int nbLignes, double tauxErreur) {
+        Random random = new Random(GRAINE);
+        List<String> lignes = new ArrayList<>(nbLignes);
+        int nbManagers = 0;
+        for (int i = 0; i < nbLignes; i++) {
+            if (random.nextDouble() < tauxErreur) {
+                lignes.add(LIGNES_ERRONEES[random.nextInt(LIGNES_ERRONEES.length)]);
+            } else if (i % 10 == 0 || nbManagers == 0) {
+                lignes.add(String.format(Locale.ROOT, "M%05d,%s,%s,%s,%.2f", nbManagers++ % 100000, nom(random), prenom(random),
+                        date(random), 1500 + random.nextInt(300000) / 100.0));
+            } else if (random.nextBoolean()) {
+                lignes.add(String.format(Locale.ROOT, "T%05d,%s,%s,%s,%.2f,%d,M%05d", i % 100000, nom(random), prenom(random),
+                        date(random), 1200 + random.nextInt(200000) / 100.0, 1 + random.nextInt(5),
+                        random.nextInt(nbManagers) % 100000));
+            } else {
+                lignes.add(String.format(Locale.ROOT, "C%05d,%s,%s,%s,%.2f,%.1f,%d", i % 100000, nom(random), prenom(random),
+                        date(random), 1300 + random.nextInt(200000) / 100.0, random.nextInt(50000000) / 10.0,
+                        random.nextInt(200)));
+            }
+        }
+        return lignes;
+    }
+
+    /**
+     * Écrit un fichier synthétique dans un fichier temporaire, supprimé à l'arrêt de la JVM
+     * @param nbLignes le nombre de lignes à générer
+     * @param tauxErreur la proportion de lignes incorrectes, entre 0 et 1
+     * @return le chemin du fichier
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public static Path genererFichier(int nbLignes, double tauxErreur) throws IOException {
+        Path fichier = Files.createTempFile("employes-" + nbLignes + "-", ".csv");
+        fichier.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            for (String ligne : genererLignes(nbLignes, tauxErreur)) {
+                writer.write(ligne);
+                writer.write('\n');
+            }
+        }
+        return fichier;
+    }
+
+    private static String nom(Random random) {
+        return NOMS[random.nextInt(NOMS.length)];
+    }
+
+    private static String prenom(Random random) {
+        return PRENOMS[random.nextInt(PRENOMS.length)];
+    }
+
+    private static String date(Random random) {
+        return String.format(Locale.ROOT, "%02d/%02d/%d", 1 + random.nextInt(28), 1 + random.nextInt(12), 1990 + random.nextInt(30));
+    }
+}
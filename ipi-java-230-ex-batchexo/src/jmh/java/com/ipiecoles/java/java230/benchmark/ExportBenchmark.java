@@ -0,0 +1,112 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.Application;
+import com.ipiecoles.java.java230.batch.EmployeExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export CSV de tous les employés d'une base H2 de nbEmployes lignes, selon le nombre de threads de lecture
+ * et la taille des tranches d'ids. Le score est le temps de l'export complet : nbEmployes / score donne le débit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+public class ExportBenchmark {
+
+    @Param({"200000"})
+    private int nbEmployes;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    @Param({"20000"})
+    private int tailleTranche;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeExporter exporter;
+
+    private Path fichier;
+
+    @Setup(Level.Trial)
+    public void demarrer() throws IOException {
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:export;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--batch.export.threads=" + threads,
+                "--batch.export.shard-size=" + tailleTranche,
+                "--logging.level.com.ipiecoles=OFF");
+        exporter = context.getBean(EmployeExporter.class);
+        fichier = Files.createTempFile("export", ".csv");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from Technicien");
+        jdbcTemplate.update("delete from Commercial");
+        jdbcTemplate.update("delete from Manager");
+        jdbcTemplate.update("delete from Employe");
+        List<Object[]> employes = new ArrayList<>(nbEmployes);
+        List<Object[]> managers = new ArrayList<>();
+        List<Object[]> techniciens = new ArrayList<>();
+        List<Object[]> commerciaux = new ArrayList<>();
+        // Même répartition que les fichiers d'import : un manager et un commercial pour huit techniciens //
+        for (int i = 1; i <= nbEmployes; i++) {
+            String type = i % 10 == 1 ? "M" : i % 10 == 6 ? "C" : "T";
+            int grade = 1 + i % 5;
+            double salaire = (100000 + i % 500000) / 100.0;
+            if ("M".equals(type)) {
+                managers.add(new Object[]{i});
+                salaire *= 1.3;
+            } else if ("C".equals(type)) {
+                commerciaux.add(new Object[]{i, 50000.0, 100});
+            } else {
+                techniciens.add(new Object[]{i, grade, i - (i - 1) % 10});
+                salaire *= 1 + (double) grade / 10;
+            }
+            employes.add(new Object[]{i, "durand", "jacques", "durand", "jacques", String.format("%s%05d", type, i % 100000),
+                    new Date(0), salaire});
+        }
+        jdbcTemplate.batchUpdate("insert into Employe (id, nom, prenom, nomRecherche, prenomRecherche, matricule, "
+                + "dateEmbauche, salaire) values (?, ?, ?, ?, ?, ?, ?, ?)", employes);
+        jdbcTemplate.batchUpdate("insert into Manager (id) values (?)", managers);
+        jdbcTemplate.batchUpdate("insert into Commercial (id, caAnnuel, performance) values (?, ?, ?)", commerciaux);
+        jdbcTemplate.batchUpdate("insert into Technicien (id, grade, manager_id) values (?, ?, ?)", techniciens);
+    }
+
+    @Benchmark
+    public long exporter() throws IOException {
+        return exporter.exporter(fichier);
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() throws IOException {
+        context.close();
+        Files.deleteIfExists(fichier);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.batch.EmployeLineParser;
+import com.ipiecoles.java.java230.batch.MappedFileSourceLignes;
+import com.ipiecoles.java.java230.batch.ParallelLineParser;
+import com.ipiecoles.java.java230.batch.ReaderSourceLignes;
+import com.ipiecoles.java.java230.batch.SourceLignes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture et analyse parallèle d'un fichier complet, sans écriture en BDD :
+ * fichier projeté en mémoire contre lecture par un BufferedReader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class FileParsingBenchmark {
+
+    @Param({"100000"})
+    private int nbLignes;
+
+    @Param({"0.05"})
+    private double tauxErreur;
+
+    @Param({"0"})
+    private int nbThreads;
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    private Path fichier;
+
+    @Setup
+    public void setup() throws IOException {
+        fichier = EmployeFileGenerator.genererFichier(nbLignes, tauxErreur);
+    }
+
+    @Benchmark
+    public long fichierProjete(Blackhole blackhole) throws IOException {
+        try (SourceLignes source = new MappedFileSourceLignes(fichier)) {
+            return new ParallelLineParser(parser, nbThreads, 1000).process(source, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public long fichierLu(Blackhole blackhole) throws IOException {
+        try (SourceLignes source = new ReaderSourceLignes(Files.newBufferedReader(fichier, StandardCharsets.UTF_8))) {
+            return new ParallelLineParser(parser, nbThreads, 1000).process(source, blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.Application;
+import com.ipiecoles.java.java230.MyRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import complet d'un fichier (lecture, analyse, résolution des managers et écriture par paquets)
+ * dans une base H2 en mémoire. Chaque itération importe le fichier dans des tables vidées au préalable.
+ * Les logs de l'application sont coupés pour ne pas mesurer l'écriture des lignes rejetées sur la console.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+public class ImportBenchmark {
+
+    @Param({"50000"})
+    private int nbLignes;
+
+    @Param({"0.05"})
+    private double tauxErreur;
+
+    @Param({"1000"})
+    private int commitInterval;
+
+    private ConfigurableApplicationContext context;
+
+    private MyRunner runner;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Path fichier;
+
+    @Setup(Level.Trial)
+    public void demarrer() throws IOException {
+        fichier = EmployeFileGenerator.genererFichier(nbLignes, tauxErreur);
+        // Les arguments de la ligne de commande priment sur application.properties //
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--batch.import.commit-interval=" + commitInterval,
+                "--logging.level.com.ipiecoles=OFF");
+        runner = context.getBean(MyRunner.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void viderTables() {
+        jdbcTemplate.update("delete from Technicien");
+        jdbcTemplate.update("delete from Commercial");
+        jdbcTemplate.update("delete from Manager");
+        jdbcTemplate.update("delete from Employe");
+    }
+
+    @Benchmark
+    public long importer() {
+        return runner.readFile(fichier);
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() throws IOException {
+        context.close();
+        Files.deleteIfExists(fichier.resolveSibling(fichier.getFileName() + ".rejets.csv"));
+    }
+}
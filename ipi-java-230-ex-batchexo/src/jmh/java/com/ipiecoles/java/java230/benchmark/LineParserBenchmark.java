@@ -0,0 +1,57 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.batch.EmployeLineParser;
+import com.ipiecoles.java.java230.batch.LigneEmploye;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyse et validation d'une ligne du fichier (processLine, infosEmploye et les conversions),
+ * sur des lignes synthétiques dont une partie est incorrecte.
+ * Le mode SampleTime donne les percentiles de latence par ligne.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class LineParserBenchmark {
+
+    @Param({"10000"})
+    private int nbLignes;
+
+    @Param({"0", "0.1"})
+    private double tauxErreur;
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    private List<String> lignes;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        lignes = EmployeFileGenerator.genererLignes(nbLignes, tauxErreur);
+    }
+
+    @Benchmark
+    public LigneEmploye parse() {
+        if (index == lignes.size()) {
+            index = 0;
+        }
+        return parser.parse(index + 1, lignes.get(index++));
+    }
+}
@@ -0,0 +1,134 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.Application;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.EmployeResume;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import com.ipiecoles.java.java230.service.LectureEnFlux;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'employés de tous les types dans une base H2 de nbEmployes lignes : entités, qui joignent les tables
+ * Manager, Technicien et Commercial, contre projection EmployeResume, qui ne lit que la table Employe.
+ * Une page de taillePage employés par clé, et la lecture en flux de tous les employés (export).
+ * Le profileur gc ({@code -prof gc}) donne la mémoire allouée par opération.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+public class ProjectionBenchmark {
+
+    @Param({"200000"})
+    private int nbEmployes;
+
+    @Param({"1000"})
+    private int taillePage;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeRepository employeRepository;
+
+    private LectureEnFlux lectureEnFlux;
+
+    private final Random random = new Random(42L);
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:projection;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--logging.level.com.ipiecoles=OFF");
+        employeRepository = context.getBean(EmployeRepository.class);
+        lectureEnFlux = context.getBean(LectureEnFlux.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from Technicien");
+        jdbcTemplate.update("delete from Commercial");
+        jdbcTemplate.update("delete from Manager");
+        jdbcTemplate.update("delete from Employe");
+        List<Object[]> employes = new ArrayList<>(nbEmployes);
+        List<Object[]> managers = new ArrayList<>();
+        List<Object[]> techniciens = new ArrayList<>();
+        List<Object[]> commerciaux = new ArrayList<>();
+        // Même répartition que les fichiers d'import : un manager et un commercial pour huit techniciens //
+        for (int i = 1; i <= nbEmployes; i++) {
+            String type = i % 10 == 1 ? "M" : i % 10 == 6 ? "C" : "T";
+            employes.add(new Object[]{i, "durand", "jacques", "durand", "jacques", String.format("%s%05d", type, i % 100000),
+                    new Date(0), 1500.0 + i % 1000});
+            if ("M".equals(type)) {
+                managers.add(new Object[]{i});
+            } else if ("C".equals(type)) {
+                commerciaux.add(new Object[]{i, 50000.0, 100});
+            } else {
+                techniciens.add(new Object[]{i, 1 + i % 5, i - (i - 1) % 10});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into Employe (id, nom, prenom, nomRecherche, prenomRecherche, matricule, "
+                + "dateEmbauche, salaire) values (?, ?, ?, ?, ?, ?, ?, ?)", employes);
+        jdbcTemplate.batchUpdate("insert into Manager (id) values (?)", managers);
+        jdbcTemplate.batchUpdate("insert into Commercial (id, caAnnuel, performance) values (?, ?, ?)", commerciaux);
+        jdbcTemplate.batchUpdate("insert into Technicien (id, grade, manager_id) values (?, ?, ?)", techniciens);
+    }
+
+    private long idAuHasard() {
+        return random.nextInt(nbEmployes - taillePage);
+    }
+
+    @Benchmark
+    public Slice<Employe> pageEntites() {
+        return employeRepository.findByIdGreaterThanOrderByIdAsc(idAuHasard(), new PageRequest(0, taillePage));
+    }
+
+    @Benchmark
+    public Slice<EmployeResume> pageProjection() {
+        return employeRepository.findResumeByIdGreaterThanOrderByIdAsc(idAuHasard(), new PageRequest(0, taillePage));
+    }
+
+    @Benchmark
+    @Measurement(iterations = 5, time = 5)
+    public long fluxEntites(Blackhole blackhole) {
+        return lectureEnFlux.parcourir(() -> employeRepository.streamByDateEmbaucheAfter(new LocalDate(1960, 1, 1)),
+                employe -> blackhole.consume(employe.getSalaire()));
+    }
+
+    @Benchmark
+    @Measurement(iterations = 5, time = 5)
+    public long fluxProjection(Blackhole blackhole) {
+        return lectureEnFlux.parcourir(() -> employeRepository.streamAllResume(),
+                employe -> blackhole.consume(employe.getSalaire()));
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        context.close();
+    }
+}
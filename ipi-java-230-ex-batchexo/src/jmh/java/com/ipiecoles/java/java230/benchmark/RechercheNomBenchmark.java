@@ -0,0 +1,107 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.Application;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.NomRecherche;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche d'employés par nom dans une table H2 de nbEmployes lignes : lower() sur la colonne (ancienne requête)
+ * contre égalité sur la colonne normalisée et indexée. Le plan d'exécution des deux requêtes est affiché au démarrage :
+ * seule la seconde utilise l'index idx_employe_nomrecherche, la première parcourt toute la table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:+IgnoreUnrecognizedVMOptions", "--add-opens=java.base/java.lang=ALL-UNNAMED"})
+public class RechercheNomBenchmark {
+
+    private static final String[] NOMS = {"Durand", "Dupont", "Aubert", "Martin", "Bernard", "Petit", "Lefèvre"};
+
+    // Chaque nom est porté par nbEmployes / 70000 employés environ //
+    private static final int NB_SUFFIXES = 10000;
+
+    @Param({"200000"})
+    private int nbEmployes;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeRepository employeRepository;
+
+    private final Random random = new Random(42L);
+
+    @Setup(Level.Trial)
+    public void demarrer() {
+        context = new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:recherche;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--logging.level.com.ipiecoles=OFF");
+        employeRepository = context.getBean(EmployeRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from Technicien");
+        jdbcTemplate.update("delete from Commercial");
+        jdbcTemplate.update("delete from Manager");
+        jdbcTemplate.update("delete from Employe");
+        List<Object[]> employes = new ArrayList<>(nbEmployes);
+        List<Object[]> managers = new ArrayList<>(nbEmployes);
+        for (int i = 1; i <= nbEmployes; i++) {
+            String nom = NOMS[i % NOMS.length] + (i % NB_SUFFIXES);
+            employes.add(new Object[]{i, nom, "Jacques", NomRecherche.normaliser(nom), "jacques",
+                    String.format("M%05d", i % 100000), new Date(0), 1500.0});
+            managers.add(new Object[]{i});
+        }
+        jdbcTemplate.batchUpdate("insert into Employe (id, nom, prenom, nomRecherche, prenomRecherche, matricule, "
+                + "dateEmbauche, salaire) values (?, ?, ?, ?, ?, ?, ?, ?)", employes);
+        jdbcTemplate.batchUpdate("insert into Manager (id) values (?)", managers);
+        System.out.println("Plan lower() : " + jdbcTemplate.queryForObject(
+                "explain select * from Employe where lower(nom) = lower('LEFÈVRE12')", String.class).replace('\n', ' '));
+        System.out.println("Plan colonne normalisée : " + jdbcTemplate.queryForObject(
+                "explain select * from Employe where nomRecherche = 'lefevre12'", String.class).replace('\n', ' '));
+    }
+
+    private String nomAuHasard() {
+        return NOMS[random.nextInt(NOMS.length)].toUpperCase() + random.nextInt(NB_SUFFIXES);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public List<Employe> rechercheLower() {
+        return employeRepository.findByNomIgnoreCase(nomAuHasard());
+    }
+
+    @Benchmark
+    public List<Employe> rechercheColonneNormalisee() {
+        return employeRepository.rechercherParNom(nomAuHasard());
+    }
+
+    @TearDown(Level.Trial)
+    public void arreter() {
+        context.close();
+    }
+}
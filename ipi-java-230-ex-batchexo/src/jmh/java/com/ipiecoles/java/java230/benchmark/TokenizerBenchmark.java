@@ -0,0 +1,87 @@
+package com.ipiecoles.java.java230.benchmark;
+
+import com.ipiecoles.java.java230.batch.CsvLineTokenizer;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validation des champs d'une ligne : découpage, matricule, date et nombres.
+ * Les méthodes *Reference mesurent l'équivalent avec String.split, les expressions régulières
+ * et Joda DateTimeFormat, tel que l'import le faisait avant le tokenizer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class TokenizerBenchmark {
+
+    private static final String LIGNE = "T98765,dupont,pierre,12/03/2003,1700.5,5,M87654";
+
+    private static final Pattern REGEX_MATRICULE = Pattern.compile("^[MTC][0-9]{5}$");
+
+    private static final DateTimeFormatter FORMAT_DATE = DateTimeFormat.forPattern("dd/MM/yyyy");
+
+    private final CsvLineTokenizer tokenizer = new CsvLineTokenizer();
+
+    @Setup
+    public void setup() {
+        tokenizer.reset(LIGNE);
+    }
+
+    @Benchmark
+    public int decoupage() {
+        tokenizer.reset(LIGNE);
+        return tokenizer.getNbChamps();
+    }
+
+    @Benchmark
+    public String[] decoupageReference() {
+        return LIGNE.split(",");
+    }
+
+    @Benchmark
+    public int matricule() {
+        return tokenizer.codeMatricule(0, "MTC");
+    }
+
+    @Benchmark
+    public boolean matriculeReference() {
+        return REGEX_MATRICULE.matcher("T98765").matches();
+    }
+
+    @Benchmark
+    public LocalDate date() {
+        return tokenizer.parseDate(3);
+    }
+
+    @Benchmark
+    public LocalDate dateReference() {
+        return FORMAT_DATE.parseLocalDate("12/03/2003");
+    }
+
+    @Benchmark
+    public double salaire() {
+        return tokenizer.parseDouble(4);
+    }
+
+    @Benchmark
+    public double salaireReference() {
+        return Double.parseDouble("1700.5");
+    }
+}
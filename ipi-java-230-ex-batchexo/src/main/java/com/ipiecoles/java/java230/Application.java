@@ -1,12 +1,19 @@
 package com.ipiecoles.java.java230;
 
+import com.ipiecoles.java.java230.batch.ValidationFichier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class Application {
 
     public static void main(String[] args) {
+        // "validate <fichier>" vérifie le fichier sans démarrer Spring ni se connecter à la BDD //
+        if (args.length > 0 && ValidationFichier.COMMANDE.equals(args[0])) {
+            System.exit(ValidationFichier.executer(Arrays.copyOfRange(args, 1, args.length)));
+        }
         SpringApplication.run(Application.class, args);
     }
 }
@@ -1,301 +1,405 @@
 package com.ipiecoles.java.java230;
 
+import com.ipiecoles.java.java230.batch.ChargementMassif;
+import com.ipiecoles.java.java230.batch.EmployeChunk;
+import com.ipiecoles.java.java230.batch.EmployeChunkWriter;
+import com.ipiecoles.java.java230.batch.EmployeExporter;
+import com.ipiecoles.java.java230.batch.EmployeIndex;
+import com.ipiecoles.java.java230.batch.EmployeLineParser;
+import com.ipiecoles.java.java230.batch.FichiersChargement;
+import com.ipiecoles.java.java230.batch.ImportCheckpoint;
+import com.ipiecoles.java.java230.batch.ImportJobTracker;
+import com.ipiecoles.java.java230.batch.ImportMetrics;
+import com.ipiecoles.java.java230.batch.LigneEmploye;
+import com.ipiecoles.java.java230.batch.ManagerIndex;
+import com.ipiecoles.java.java230.batch.MatriculeRegistry;
+import com.ipiecoles.java.java230.batch.Matricules;
+import com.ipiecoles.java.java230.batch.ParallelLineParser;
+import com.ipiecoles.java.java230.batch.QuarantaineRejets;
+import com.ipiecoles.java.java230.batch.SourceLignes;
 import com.ipiecoles.java.java230.exceptions.BatchException;
-import com.ipiecoles.java.java230.exceptions.TechnicienException;
-import com.ipiecoles.java.java230.model.Commercial;
-import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
 import com.ipiecoles.java.java230.model.Manager;
 import com.ipiecoles.java.java230.model.Technicien;
-import com.ipiecoles.java.java230.repository.EmployeRepository;
 import com.ipiecoles.java.java230.repository.ManagerRepository;
-import org.joda.time.LocalDate;
-import org.joda.time.format.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 public class MyRunner implements CommandLineRunner {
 
-    private static final String REGEX_MATRICULE = "^[MTC][0-9]{5}$";
-    private static final String REGEX_NOM = ".*";
-    private static final String REGEX_PRENOM = ".*";
-    private static final int NB_CHAMPS_MANAGER = 5;
-    private static final int NB_CHAMPS_TECHNICIEN = 7;
-    private static final String REGEX_MATRICULE_MANAGER = "^M[0-9]{5}$";
-    private static final int NB_CHAMPS_COMMERCIAL = 7;
+    private static final String EXTENSION_REJETS = ".rejets.csv";
 
     @Autowired
-    private EmployeRepository employeRepository;
+    private ManagerRepository managerRepository;
 
     @Autowired
-    private ManagerRepository managerRepository;
+    private EmployeChunkWriter employeChunkWriter;
+
+    @Autowired
+    private ImportMetrics metrics;
+
+    @Autowired
+    private ImportJobTracker importJobTracker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmployeExporter employeExporter;
+
+    @Autowired
+    private ChargementMassif chargementMassif;
+
+    @Value("${batch.import.commit-interval:1000}")
+    private int commitInterval;
+
+    @Value("${batch.import.threads:0}")
+    private int nbThreads;
+
+    @Value("${batch.import.block-size:1000}")
+    private int tailleBloc;
+
+    // insert : chaque ligne crée un employé, upsert : les employés existants sont mis à jour, //
+    // bulk : comme insert, mais les employés sont chargés en fin de fichier par l'outil natif de la BDD //
+    @Value("${batch.import.mode:insert}")
+    private String mode;
+
+    @Value("${batch.import.reject-queue-capacity:10000}")
+    private int capaciteRejets;
+
+    @Value("${batch.import.log-rejects:100}")
+    private int nbRejetsLogues;
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    // Paquet en cours, enregistré tous les commitInterval employés //
+    private EmployeChunk chunk = new EmployeChunk();
+
+    // Managers en base ou lus dans le fichier, chargé au début de chaque import //
+    private ManagerIndex managers;
+
+    // Matricules en base et déjà lus dans le fichier, pour rejeter les doublons //
+    private MatriculeRegistry matricules;
+
+    // Employés en base ou lus dans le fichier en mode upsert, null en mode insert //
+    private EmployeIndex employes;
+
+    // Techniciens lus avant leur manager, rattachés en fin de fichier //
+    private List<LigneEmploye> techniciensEnAttente = new ArrayList<>();
+
+    // Point de reprise de l'import en cours, enregistré avec chaque paquet //
+    private ImportCheckpoint checkpoint;
 
-    private List<Employe> employes = new ArrayList<>();
+    // Fichiers intermédiaires du chargement massif en mode bulk, null sinon //
+    private FichiersChargement fichiersChargement;
+
+    // Fichier des lignes rejetées par l'import en cours, à côté du fichier importé //
+    private QuarantaineRejets quarantaine;
+
+    private long nbEmployes;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Override
     public void run(String... strings) {
-        String fileName = "employes.csv";
-        readFile(fileName);
-        employeRepository.save(employes);
-        //readFile(strings[0]);
+        // Le premier argument qui n'est pas une option Spring (--...) est le chemin du fichier à importer, //
+        // ou "export" suivi du chemin du fichier dans lequel exporter les employés //
+        for (int i = 0; i < strings.length; i++) {
+            if (!strings[i].startsWith("--")) {
+                if ("export".equals(strings[i])) {
+                    exportFile(Paths.get(i + 1 < strings.length ? strings[i + 1] : "employes-export.csv"));
+                } else {
+                    readFile(Paths.get(strings[i]));
+                }
+                return;
+            }
+        }
+        readFile("employes.csv");
     }
 
     /**
-     * Méthode qui lit le fichier CSV en paramètre afin d'intégrer son contenu en BDD
+     * Méthode qui lit le fichier CSV en paramètre afin d'intégrer son contenu en BDD.
      * @param fileName Le nom du fichier (à mettre dans src/main/resources)
-     * @return une liste contenant les employés à insérer en BDD ou null si le fichier n'a pas pu être le
+     * @return le nombre d'employés intégrés en BDD
      */
-    public List<Employe> readFile(String fileName){
-        Stream<String> stream;
+    public long readFile(String fileName){
         logger.info("Lecture du fichier " + fileName);
-
-        // Ouvre le fichiez csv afin d'en lire les données //
-        try {
-            stream = Files.lines(Paths.get(new ClassPathResource(fileName).getURI()));
+        ClassPathResource resource = new ClassPathResource(fileName);
+        try (SourceLignes source = SourceLignes.ouvrir(resource.getInputStream())) {
+            checkpoint = importJobTracker.demarrer(fileName, resource.contentLength(), resource.lastModified(), isUpsert());
+            return importer(source, Paths.get(fileName + EXTENSION_REJETS));
         } catch (IOException e){
-            logger.error("Problème dans l'ouverture du fichier" + fileName);
-            return new ArrayList<>();
+            logger.error("Problème dans la lecture du fichier " + fileName);
+            return nbEmployes;
         }
+    }
 
-        // Initialise le message d'erreur de l'exception lorsqu'une exception est catch //
-        // Sinon traitement des lignes du fichier                                       //
-        List<String> ligne = stream.collect(Collectors.toList());
-        logger.info(ligne.size() + " lignes lues");
-        for(int i = 0; i < ligne.size(); i++){
-            try {
-                processLine(ligne.get(i));
-            } catch (BatchException e) {
-               logger.error("Ligne " + (i+1) + " : "  + e.getMessage() + " => " + ligne.get(i));
-            }
+    /**
+     * Méthode qui lit un fichier CSV du disque afin d'intégrer son contenu en BDD.
+     * Le fichier est projeté en mémoire par segments : les threads d'analyse décodent directement
+     * les octets du fichier, sans copie par un Reader ni String intermédiaire par ligne.
+     * Un fichier compressé (gzip ou zip) est décompressé au fil de la lecture par un thread dédié.
+     * @param path Le chemin du fichier
+     * @return le nombre d'employés intégrés en BDD
+     */
+    public long readFile(Path path){
+        logger.info("Lecture du fichier " + path);
+        try (SourceLignes source = SourceLignes.ouvrir(path)) {
+            checkpoint = importJobTracker.demarrer(path.toAbsolutePath().toString(), Files.size(path),
+                    Files.getLastModifiedTime(path).toMillis(), isUpsert());
+            return importer(source, path.resolveSibling(path.getFileName() + EXTENSION_REJETS));
+        } catch (IOException e){
+            logger.error("Problème dans la lecture du fichier " + path + " : " + e.getMessage());
+            return nbEmployes;
         }
-
-        return employes;
     }
 
     /**
-     * Méthode qui regarde le premier caractère de la ligne et appelle la bonne méthode de création d'employé
-     * @param ligne la ligne à analyser
-     * @throws BatchException si le type d'employé n'a pas été reconnu
+     * Méthode qui écrit tous les employés de la BDD dans un fichier CSV, au format lu par l'import
+     * @param path Le chemin du fichier, remplacé s'il existe
+     * @return le nombre d'employés exportés
      */
-    private void processLine(String ligne) throws BatchException {
-        String firstCarac = ligne.substring(0,1);
-        switch (firstCarac){
-
-            // La lettre T correspond à un Technicien //
-            case "T":
-                processTechnicien(ligne);
-                break;
-
-            // La lettre M correspond à un Manager    //
-            case "M":
-                processManager(ligne);
-                break;
-
-            // La lettre C correspond à un Commercial //
-            case "C":
-                processCommercial(ligne);
-                break;
-
-            default:
-                throw new BatchException("Type d'employé inconnu : " + firstCarac + " => " + ligne);
+    public long exportFile(Path path){
+        logger.info("Export des employés dans le fichier " + path);
+        try {
+            return employeExporter.exporter(path);
+        } catch (IOException e){
+            logger.error("Problème dans l'écriture du fichier " + path + " : " + e.getMessage());
+            return 0;
         }
     }
 
     /**
-     * Méthode qui crée un Commercial à partir d'une ligne contenant les informations d'un commercial et l'ajoute dans la liste globale des employés
-     * @param ligneCommercial la ligne contenant les infos du commercial à intégrer
-     * @throws BatchException s'il y a un problème sur cette ligne
+     * Intègre en BDD les lignes de la source.
+     * Les lignes sont analysées en parallèle par blocs puis écrites dans l'ordre du fichier par le thread
+     * appelant, par paquets de commitInterval : seuls les blocs, le paquet en cours et les techniciens lus
+     * avant leur manager sont conservés en mémoire, quelle que soit la taille du fichier.
+     * Le rapport des métriques de l'import est écrit dans les logs à la fin, même en cas d'erreur de lecture.
+     * Lors de la reprise d'un import interrompu, les lignes traitées avant l'interruption sont ignorées.
+     * Les lignes rejetées sont écrites dans le fichier de quarantaine, seules les batch.import.log-rejects
+     * premières sont écrites dans les logs.
+     * En mode bulk, les employés sont écrits dans des fichiers intermédiaires puis chargés en une transaction
+     * à la fin du fichier : un import interrompu n'a rien enregistré et repart du début.
+     * @param source les lignes du fichier
+     * @param fichierRejets le fichier de quarantaine, créé au premier rejet
+     * @return le nombre d'employés intégrés en BDD
+     * @throws IOException en cas de problème de lecture du fichier
      */
-    private void processCommercial(String ligneCommercial) throws BatchException {
-
-        List<String> splitByElement = new ArrayList<>(Arrays.asList(ligneCommercial.split(",")));
-        Commercial commercial = new Commercial();
-
-        // Vérifie que la ligne dispose du bon nombre d'élément //
-        // Renvoie une Exception si False                       //
-        if (splitByElement.size() == NB_CHAMPS_COMMERCIAL) {
-
-            infosEmploye(commercial, splitByElement);
-
-            // Effectue la conversion du Grade du type String à Double           //
-            // Renvoie une erreur si : -La conversion de format echoue           //
-            try {
-                commercial.setCaAnnuel(Double.parseDouble(splitByElement.get(5)));
-            } catch (Exception e) {
-                throw new BatchException("Le chiffre d'affaire du commercial est incorrect : " + splitByElement.get(5));
-            }
-
-            // Effectue la conversion du Grade du type String à Double           //
-            // Renvoie une erreur si : -La conversion de format echoue           //
-            try {
-                commercial.setPerformance(Integer.parseInt(splitByElement.get(6)));
-            } catch (Exception e) {
-                throw new BatchException("La performance du commercial est incorrecte : " + splitByElement.get(6));
+    private long importer(SourceLignes source, Path fichierRejets) throws IOException {
+        nbEmployes = 0;
+        chunk.clear();
+        techniciensEnAttente.clear();
+        metrics.demarrer();
+        long debut = System.nanoTime();
+        managers = ManagerIndex.charger(managerRepository);
+        matricules = MatriculeRegistry.charger(jdbcTemplate);
+        employes = isUpsert() ? EmployeIndex.charger(jdbcTemplate) : null;
+        metrics.ajouterTemps(ImportMetrics.Etape.RESOLUTION, System.nanoTime() - debut);
+        fichiersChargement = isBulk() ? new FichiersChargement() : null;
+        quarantaine = new QuarantaineRejets(fichierRejets, capaciteRejets, checkpoint.getDerniereLigneEcriteAvantReprise());
+
+        // Traite les lignes au fur et à mesure de leur lecture //
+        try {
+            long nbLignes = new ParallelLineParser(parser, nbThreads, tailleBloc, metrics).process(source, this::ecrire);
+            ecrireTechniciensEnAttente();
+            nbEmployes += fichiersChargement != null ? chargerFichiers() : flushChunk();
+            importJobTracker.terminer(checkpoint, nbLignes);
+        } finally {
+            if (fichiersChargement != null) {
+                fichiersChargement.close();
             }
-
-        } else {
-            throw new BatchException("La ligne commercial ne contient pas 7 éléments mais " + splitByElement.size());
+            fermerQuarantaine();
+            metrics.terminer();
+            logger.info(metrics.rapport());
         }
+        return nbEmployes;
     }
 
     /**
-     * Méthode qui crée un Manager à partir d'une ligne contenant les informations d'un manager et l'ajoute dans la liste globale des employés
-     * @param ligneManager la ligne contenant les infos du manager à intégrer
-     * @throws BatchException s'il y a un problème sur cette ligne
+     * Étape d'écriture : rejette les matricules en double, vérifie que le manager des techniciens est connu
+     * et ajoute les employés au paquet en cours
+     * @param ligne la ligne analysée
      */
-    private void processManager(String ligneManager) throws BatchException {
-
-        Manager manager = new Manager();
-        List<String> splitByElement = new ArrayList<>(Arrays.asList(ligneManager.split(",")));
-
-        // Vérifie que la ligne dispose du bon nombre d'élément //
-        // Renvoie une Exception si False                       //
-        if (splitByElement.size() == NB_CHAMPS_MANAGER) {
-
-         infosEmploye(manager, splitByElement);
+    private void ecrire(LigneEmploye ligne) {
+        if (checkpoint.dejaTraitee(ligne, matricules)) {
+            metrics.ligneDejaTraitee();
+            return;
+        }
+        metrics.ligneAnalysee(ligne);
+        if (ligne.isIgnoree()) {
+            return;
+        }
+        if (ligne.isRejetee()) {
+            rejeter(ligne, ligne.getCode(), ligne.getErreur());
+            return;
+        }
+        long debut = System.nanoTime();
+        try {
+            verifierMatricule(ligne.getEmploye().getMatricule());
+        } catch (BatchException e) {
+            metrics.ajouterTemps(ImportMetrics.Etape.RESOLUTION, System.nanoTime() - debut);
+            metrics.ligneRejetee(ligne, e.getCode());
+            rejeter(ligne, e.getCode(), e.getMessage());
+            return;
+        }
+        if (ligne.getEmploye() instanceof Manager) {
+            managers.declarer(ligne.getEmploye().getMatricule());
+        }
 
-        }else {
-            throw new BatchException("La ligne manager ne contient pas 5 éléments mais " + splitByElement.size());
+        // Un technicien dont le manager n'est ni en base ni plus haut dans le fichier est mis en attente //
+        boolean enAttente = ligne.getEmploye() instanceof Technicien && !managers.contient(ligne.getMatriculeManager());
+        metrics.ajouterTemps(ImportMetrics.Etape.RESOLUTION, System.nanoTime() - debut);
+        if (enAttente) {
+            techniciensEnAttente.add(ligne.detacher());
+            return;
         }
+        nbEmployes += ajouterAuChunk(ligne);
     }
 
     /**
-     * Méthode qui crée un Technicien à partir d'une ligne contenant les informations d'un technicien et l'ajoute dans la liste globale des employés
-     * @param ligneTechnicien la ligne contenant les infos du technicien à intégrer
-     * @throws BatchException s'il y a un problème sur cette ligne
+     * Vérifie qu'un matricule n'apparaît qu'une fois dans le fichier et, en mode insert, qu'il n'est pas déjà en base.
+     * La première occurrence d'un matricule dans le fichier est conservée.
+     * @param matricule le matricule de l'employé lu
+     * @throws BatchException si le matricule est refusé
      */
-    private void processTechnicien(String ligneTechnicien) throws BatchException {
-        List<String> splitByElement = new ArrayList<>(Arrays.asList(ligneTechnicien.split(",")));
-        Technicien technicien = new Technicien();
-
-        // Vérifie que la ligne dispose du bon nombre d'élément //
-        // Renvoie une Exception si False                       //
-        if (splitByElement.size() == NB_CHAMPS_TECHNICIEN) {
-
-            // Effectue la conversion du Grade du type String à Integer          //
-            // Renvoie une erreur si : -L'Integer n'est pas compris entre 1 et 5 //
-            //                         -La conversion de format echoue           //
-            try {
-                technicien.setGrade(Integer.parseInt(splitByElement.get(5)));
-            } catch (TechnicienException e) {
-                throw new BatchException("Le grade doit être compris entre 1 et 5 : " + splitByElement.get(5));
-            } catch (Exception e) {
-                throw new BatchException(splitByElement.get(5) + " n'est pas un nombre valide pour un salaire");
-            }
-
-            infosEmploye(technicien, splitByElement);
-
-            // Vérifie que le matricule du manager dont dépend le technicien, correspond à l'expression régulière //
-            if ((splitByElement.get(6)).matches(REGEX_MATRICULE_MANAGER)){
-
-                // Compare le matricule manager présent dans la ligne avec ceux présent en base //
-                // Set le manager si True                                                       //
-                if(managerRepository.findByMatricule(splitByElement.get(6)) != null ) {
-                    technicien.setManager(managerRepository.findByMatricule(splitByElement.get(6)));
-                } else {
-                    throw new BatchException("Le manager de matricule " + splitByElement.get(6) + " n'a pas été trouvé dans le fichier ou en base de données");
-                }
-
-                // Compare le matricule manager présent dans la ligne avec ceux présent dans le fichiez csv //
-                // Set le manager si True                                                                   //
-                for(int i = 0; i < employes.size() ; i++){
-
-                    // Compare le matricule manager présent dans la ligne avec ceux présent dans le fichiez csv //
-                    // Set le manager si True                                                                   //
-                    if (splitByElement.get(6).matches(employes.get(i).getMatricule())){
-                        technicien.setManager((Manager) employes.get(i));
-                    }
-
-                    else {
-                        throw new BatchException("Le manager de matricule " + splitByElement.get(6) + " n'a pas été trouvé dans le fichier ou en base de données");
-                    }
-                }
+    private void verifierMatricule(String matricule) throws BatchException {
+        int code = Matricules.coder(matricule);
+        if (!matricules.lire(code)) {
+            throw new BatchException(CodeErreur.MATRICULE_EN_DOUBLE, "Le matricule " + matricule + " est présent plusieurs fois dans le fichier");
+        }
+        if (!isUpsert() && matricules.isEnBase(code)) {
+            throw new BatchException(CodeErreur.MATRICULE_EXISTANT, "Un employé de matricule " + matricule + " existe déjà en base de données");
+        }
+    }
 
+    /**
+     * Second passage sur les techniciens lus avant leur manager, une fois tout le fichier lu
+     */
+    private void ecrireTechniciensEnAttente() {
+        for (LigneEmploye ligne : techniciensEnAttente) {
+            if (managers.contient(ligne.getMatriculeManager())) {
+                nbEmployes += ajouterAuChunk(ligne);
             } else {
-                throw new BatchException("La châine " + splitByElement.get(6) + " ne respecte pas l'expression régulière ^M[0-9]{5}$");
+                metrics.ligneRejetee(ligne, CodeErreur.MANAGER_INTROUVABLE);
+                rejeter(ligne, CodeErreur.MANAGER_INTROUVABLE, "Le manager de matricule " + ligne.getMatriculeManager()
+                        + " n'a pas été trouvé dans le fichier ou en base de données");
             }
-
-
-        } else {
-            throw new BatchException("La ligne technicien ne contient pas 7 éléments mais " + splitByElement.size());
         }
+        techniciensEnAttente.clear();
     }
 
     /**
-     * Fonction permettant de modifier le format des données pour passer d'un format String à un format Date
-     * @param dateString
-     * @return date
+     * Écrit une ligne rejetée dans le fichier de quarantaine, et dans les logs pour les batch.import.log-rejects premières
+     * @param ligne la ligne rejetée
+     * @param code le code de l'erreur
+     * @param erreur le message de l'erreur
      */
-    private LocalDate stringToDate(String dateString) {
-        LocalDate date = DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(dateString);
-        return date;
+    private void rejeter(LigneEmploye ligne, CodeErreur code, String erreur) {
+        quarantaine.rejeter(ligne, code, erreur);
+        if (quarantaine.getNbRejets() <= nbRejetsLogues) {
+            logger.error("Ligne " + ligne.getNumero() + " : " + erreur + " => " + ligne.getLigne());
+        } else if (quarantaine.getNbRejets() == nbRejetsLogues + 1) {
+            logger.error("Plus de " + nbRejetsLogues + " lignes rejetées : les suivantes ne sont écrites que dans le fichier "
+                    + quarantaine.getFichier());
+        }
     }
 
     /**
-     * Fonction permettant de regrouper les informations communes aux employés, peut-importe qu'il soit manager, tech ou commercial
-     * @param employe, instance d'employe se spécialisant ensuit en manager, tech ou commercial
-     * @param splitByElement, correspondant à la fonction permettant de découper la ligne de texte en incrémentant chaque mot dans une liste
-     * @return employe
-     * @throws BatchException , divers exception détaillé si dessous
+     * Attend l'écriture des lignes rejetées. Une erreur d'écriture du fichier de quarantaine n'interrompt pas l'import
      */
-    private Employe infosEmploye (Employe employe, List<String> splitByElement ) throws BatchException{
-
-        // Vérifie que le matricule de l'employé correspond à l'expression régulière //
-        // Set le matricule si True                                                  //
-        if ((splitByElement.get(0)).matches(REGEX_MATRICULE)) {
-            employe.setMatricule(splitByElement.get(0));
-        } else {
-            throw new BatchException("La châine " + splitByElement.get(0) + " ne respecte pas l'expression régulière ^[MTC][0-9]{5}$");
+    private void fermerQuarantaine() {
+        try {
+            quarantaine.close();
+        } catch (IOException e) {
+            logger.error("Problème dans l'écriture du fichier " + quarantaine.getFichier() + " : " + e.getMessage());
         }
-
-        // Vérifie que le nom de l'employé correspond à l'expression régulière //
-        // Set le nom si True                                                  //
-        if ((splitByElement.get(1)).matches(REGEX_NOM)){
-            employe.setNom(splitByElement.get(1));
-        } else {
-            throw new BatchException("Le nom " + splitByElement.get(1) + " n'est pas conforme");
+        if (quarantaine.getNbRejets() > 0) {
+            logger.warn(quarantaine.getNbRejets() + " lignes rejetées, écrites dans le fichier " + quarantaine.getFichier());
         }
+    }
 
-        // Vérifie que le prénom de l'employé correspond à l'expression régulière //
-        // Set le prénom si True                                                  //
-        if ((splitByElement.get(2)).matches(REGEX_PRENOM)){
-            employe.setPrenom(splitByElement.get(2));
+    /**
+     * Ajoute un employé au paquet en cours et enregistre le paquet lorsqu'il est plein.
+     * En mode upsert, l'employé est inséré si son matricule est inconnu, mis à jour si son contenu
+     * a changé et ignoré sinon.
+     * @param ligne la ligne de l'employé à enregistrer
+     * @return le nombre d'employés enregistrés en BDD par cet ajout
+     */
+    private int ajouterAuChunk(LigneEmploye ligne) {
+        checkpoint.ajoutee(ligne);
+        if (fichiersChargement != null) {
+            fichiersChargement.ajouter(ligne, managers);
+            return 0;
+        }
+        if (employes == null) {
+            chunk.ajouterNouveau(ligne);
         } else {
-            throw new BatchException("Le nom " + splitByElement.get(2) + " n'est pas conforme");
+            int code = Matricules.coder(ligne.getEmploye().getMatricule());
+            long empreinte = EmployeIndex.empreinte(ligne.getEmploye(), ligne.getMatriculeManager());
+            if (employes.getId(code) == EmployeIndex.ABSENT) {
+                chunk.ajouterNouveau(ligne);
+            } else if (employes.getEmpreinte(code) != empreinte) {
+                chunk.ajouterModifie(ligne);
+            } else {
+                metrics.ligneInchangee();
+                return 0;
+            }
+            employes.declarer(code, empreinte);
         }
+        return chunk.size() >= commitInterval ? flushChunk() : 0;
+    }
 
-        // Vérifie que la date est bien au bon format  //
-        // Set la date si True                         //
-        try {
-            employe.setDateEmbauche(stringToDate(splitByElement.get(3)));
-        } catch (Exception e) {
-            throw new BatchException(splitByElement.get(3) + " ne respecte pas le format de date dd/MM/yyyy");
+    /**
+     * Enregistre le paquet en cours en BDD dans une transaction, avec le point de reprise, et le vide
+     * @return le nombre d'employés enregistrés
+     */
+    private int flushChunk() {
+        int taille = chunk.size();
+        if (taille > 0) {
+            long debut = System.nanoTime();
+            long premiereLigneEnAttente = techniciensEnAttente.isEmpty() ? 0 : techniciensEnAttente.get(0).getNumero();
+            employeChunkWriter.write(chunk, managers, employes, checkpoint, checkpoint.calculerLigneReprise(premiereLigneEnAttente));
+            metrics.ajouterTemps(ImportMetrics.Etape.ECRITURE, System.nanoTime() - debut);
+            metrics.ajouterEmployesEnregistres(taille);
+            metrics.ajouterEmployesMisAJour(chunk.getModifies().size());
         }
+        chunk.clear();
+        return taille;
+    }
 
-        // Convertit le salaire du type String à Double                      //
-        // Renvoie une exception si mauvais format ou problème de conversion //
-        try {
-            employe.setSalaire(Double.parseDouble(splitByElement.get(4)));
-        } catch (Exception e){
-            throw new BatchException(splitByElement.get(4) + " n'est pas un nombre valide pour un salaire");
-        }
+    /**
+     * Charge en BDD les employés des fichiers intermédiaires du mode bulk
+     * @return le nombre d'employés chargés
+     * @throws IOException en cas de problème d'écriture des fichiers
+     */
+    private long chargerFichiers() throws IOException {
+        long debut = System.nanoTime();
+        fichiersChargement.terminer();
+        long nbCharges = chargementMassif.charger(fichiersChargement);
+        metrics.ajouterTemps(ImportMetrics.Etape.ECRITURE, System.nanoTime() - debut);
+        metrics.ajouterEmployesEnregistres(nbCharges);
+        return nbCharges;
+    }
 
-        return employe;
+    private boolean isBulk() {
+        return "bulk".equalsIgnoreCase(mode);
     }
 
+    private boolean isUpsert() {
+        return "upsert".equalsIgnoreCase(mode);
+    }
 }
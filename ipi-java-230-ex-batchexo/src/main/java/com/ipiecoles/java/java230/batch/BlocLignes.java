@@ -0,0 +1,21 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.List;
+
+/**
+ * Bloc de lignes consécutives du fichier, analysé d'un seul tenant par un thread d'analyse
+ */
+public interface BlocLignes {
+
+    /**
+     * Analyse toutes les lignes du bloc. Appelée depuis un thread d'analyse.
+     * @param parser l'analyseur de lignes
+     * @return les lignes analysées, dans l'ordre du fichier
+     */
+    List<LigneEmploye> parse(EmployeLineParser parser);
+
+    /**
+     * @return le nombre de lignes du bloc
+     */
+    int size();
+}
@@ -0,0 +1,151 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.service.CacheEmployes;
+import com.ipiecoles.java.java230.service.StatistiquesSalairesService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chargement massif des employés par l'outil natif de la BDD, pour le premier import d'une base :
+ * {@code LOAD DATA LOCAL INFILE} pour MySQL, {@code CSVREAD} pour H2. Les fichiers intermédiaires
+ * ({@link FichiersChargement}) sont chargés table par table dans une seule transaction, sans passer par Hibernate.
+ * Les ids sont réservés en une fois dans la table du générateur des employés (hibernate_sequences), comme le ferait
+ * l'optimiseur pooled pour un bloc de la taille du fichier : les ids attribués ensuite par Hibernate suivent ceux
+ * du chargement. Le rang de chaque employé et de son manager est converti en id par la requête de chargement.
+ * Avec MySQL, le serveur doit autoriser local_infile.
+ */
+@Component
+public class ChargementMassif {
+
+    // Taille des blocs d'ids du générateur des employés (increment_size de Employe) //
+    private static final long INCREMENT_IDS = 50;
+
+    // Colonnes de chaque table et valeur à partir des colonnes du fichier, %1$d étant le premier id réservé //
+    private static final Map<FichiersChargement.Table, String[][]> COLONNES = new EnumMap<>(FichiersChargement.Table.class);
+
+    static {
+        COLONNES.put(FichiersChargement.Table.EMPLOYE, new String[][]{
+                {"id", "RANG + %1$d"}, {"nom", "NOM"}, {"prenom", "PRENOM"}, {"nomRecherche", "NOMRECHERCHE"},
+                {"prenomRecherche", "PRENOMRECHERCHE"}, {"matricule", "MATRICULE"}, {"dateEmbauche", "DATEEMBAUCHE"},
+                {"salaire", "SALAIRE"}});
+        COLONNES.put(FichiersChargement.Table.MANAGER, new String[][]{{"id", "RANG + %1$d"}});
+        COLONNES.put(FichiersChargement.Table.TECHNICIEN, new String[][]{
+                {"id", "RANG + %1$d"}, {"grade", "GRADE"},
+                {"manager_id", "coalesce(nullif(IDMANAGER, ''), nullif(RANGMANAGER, '') + %1$d)"}});
+        COLONNES.put(FichiersChargement.Table.COMMERCIAL, new String[][]{
+                {"id", "RANG + %1$d"}, {"caAnnuel", "CAANNUEL"}, {"performance", "PERFORMANCE"}});
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    @Autowired
+    private ImportMetrics metrics;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Charge les employés des fichiers, puis recalcule les statistiques des salaires
+     * @param fichiers les fichiers intermédiaires, terminés
+     * @return le nombre d'employés chargés
+     */
+    @Transactional
+    public long charger(FichiersChargement fichiers) {
+        long nbEmployes = fichiers.getNbEmployes();
+        if (nbEmployes == 0) {
+            return 0;
+        }
+        String produit = jdbcTemplate.execute((ConnectionCallback<String>) connexion -> connexion.getMetaData().getDatabaseProductName());
+        long premierId = reserverIds(nbEmployes);
+        for (FichiersChargement.Table table : FichiersChargement.Table.values()) {
+            long debut = System.nanoTime();
+            String sql;
+            if ("MySQL".equals(produit)) {
+                sql = loadData(table, fichiers, premierId);
+            } else if ("H2".equals(produit)) {
+                sql = csvRead(table, fichiers, premierId);
+            } else {
+                throw new IllegalStateException("Chargement massif impossible avec la BDD " + produit);
+            }
+            int nbLignes = jdbcTemplate.update(sql);
+            metrics.ajouterBatchJdbc(System.nanoTime() - debut);
+            logger.info("Table {} : {} lignes chargées en {} ms", table.getNom(), nbLignes, (System.nanoTime() - debut) / 1_000_000);
+        }
+        statistiquesSalairesService.recalculer();
+        cacheEmployes.invaliderApresTransaction();
+        return nbEmployes;
+    }
+
+    /**
+     * Réserve un bloc de nbEmployes ids consécutifs dans la table du générateur, verrouillée jusqu'à la fin
+     * de la transaction. Avec l'optimiseur pooled, la valeur lue v correspond aux ids v - 49 à v :
+     * le bloc commence à v - 49, et la valeur suivante donne à Hibernate les ids qui suivent le bloc.
+     * @return le premier id réservé
+     */
+    private long reserverIds(long nbEmployes) {
+        long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from Employe", Long.class);
+        List<Long> valeurs = jdbcTemplate.queryForList(
+                "select next_val from hibernate_sequences where sequence_name = 'Employe' for update", Long.class);
+        long premierId = valeurs.isEmpty() ? maxId + 1 : Math.max(valeurs.get(0) - INCREMENT_IDS + 1, maxId + 1);
+        long valeurSuivante = premierId + nbEmployes - 1 + INCREMENT_IDS;
+        if (valeurs.isEmpty()) {
+            jdbcTemplate.update("insert into hibernate_sequences (sequence_name, next_val) values ('Employe', ?)", valeurSuivante);
+        } else {
+            jdbcTemplate.update("update hibernate_sequences set next_val = ? where sequence_name = 'Employe'", valeurSuivante);
+        }
+        return premierId;
+    }
+
+    /**
+     * Les colonnes du fichier sont lues dans des variables (@RANG...), puis les colonnes de la table calculées par SET
+     */
+    private static String loadData(FichiersChargement.Table table, FichiersChargement fichiers, long premierId) {
+        StringBuilder variables = new StringBuilder();
+        for (String colonne : table.getColonnes()) {
+            variables.append(variables.length() == 0 ? "" : ", ").append('@').append(colonne);
+        }
+        StringBuilder valeurs = new StringBuilder();
+        for (String[] colonne : COLONNES.get(table)) {
+            String valeur = String.format(Locale.ROOT, colonne[1], premierId);
+            for (String colonneFichier : table.getColonnes()) {
+                valeur = valeur.replaceAll("\\b" + colonneFichier + "\\b", "@" + colonneFichier);
+            }
+            valeurs.append(valeurs.length() == 0 ? "" : ", ").append(colonne[0]).append(" = ").append(valeur);
+        }
+        String chemin = fichiers.getFichier(table).toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+        return "load data local infile '" + chemin + "' into table " + table.getNom() + " character set utf8"
+                + " fields terminated by ',' optionally enclosed by '\"' escaped by '' lines terminated by '\\n'"
+                + " ignore 1 lines (" + variables + ") set " + valeurs;
+    }
+
+    /**
+     * Le fichier est lu comme une table par CSVREAD, dont les colonnes sont nommées par la ligne d'en-tête
+     */
+    private static String csvRead(FichiersChargement.Table table, FichiersChargement fichiers, long premierId) {
+        StringBuilder colonnes = new StringBuilder();
+        StringBuilder valeurs = new StringBuilder();
+        for (String[] colonne : COLONNES.get(table)) {
+            colonnes.append(colonnes.length() == 0 ? "" : ", ").append(colonne[0]);
+            valeurs.append(valeurs.length() == 0 ? "" : ", ").append(String.format(Locale.ROOT, colonne[1], premierId));
+        }
+        String chemin = fichiers.getFichier(table).toAbsolutePath().toString().replace("'", "''");
+        return "insert into " + table.getNom() + " (" + colonnes + ") select " + valeurs
+                + " from csvread('" + chemin + "', null, 'charset=UTF-8')";
+    }
+}
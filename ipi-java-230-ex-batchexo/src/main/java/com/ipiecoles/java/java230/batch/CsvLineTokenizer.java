@@ -0,0 +1,274 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.joda.time.LocalDate;
+
+import java.util.Arrays;
+
+/**
+ * Découpe une ligne CSV en champs sans créer de chaînes intermédiaires : la ligne est copiée dans un tampon
+ * réutilisé d'une ligne à l'autre et chaque champ n'est repéré que par ses positions de début et de fin.
+ * Les champs sont ensuite validés et convertis directement dans le tampon. Seules les valeurs dont l'entité
+ * a besoin (nom, prénom, matricule) et les messages d'erreur créent des String.
+ * Une instance n'est pas thread-safe : chaque thread d'analyse utilise la sienne.
+ */
+public class CsvLineTokenizer {
+
+    private static final char SEPARATEUR = ',';
+
+    private static final double[] PUISSANCES_DE_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    // Au-delà, la mantisse ou la puissance de 10 ne sont plus exactes en double //
+    private static final int MAX_CHIFFRES_DECIMAL = 15;
+
+    private static final int MAX_CHIFFRES_ENTIER = 9;
+
+    private char[] tampon = new char[256];
+
+    private int[] debuts = new int[16];
+
+    private int[] fins = new int[16];
+
+    private int nbChamps;
+
+    /**
+     * Charge une nouvelle ligne et repère ses champs. Comme String.split(","), les champs vides
+     * en fin de ligne sont ignorés.
+     * @param ligne la ligne à découper
+     */
+    public void reset(CharSequence ligne) {
+        int longueur = ligne.length();
+        if (tampon.length < longueur) {
+            tampon = new char[Math.max(longueur, tampon.length * 2)];
+        }
+        if (ligne instanceof String) {
+            ((String) ligne).getChars(0, longueur, tampon, 0);
+        } else {
+            for (int i = 0; i < longueur; i++) {
+                tampon[i] = ligne.charAt(i);
+            }
+        }
+        reperer(longueur);
+    }
+
+    /**
+     * Charge une nouvelle ligne déjà présente dans un tableau de caractères
+     * @param caracteres les caractères de la ligne
+     * @param longueur le nombre de caractères de la ligne
+     */
+    public void reset(char[] caracteres, int longueur) {
+        if (tampon.length < longueur) {
+            tampon = new char[Math.max(longueur, tampon.length * 2)];
+        }
+        System.arraycopy(caracteres, 0, tampon, 0, longueur);
+        reperer(longueur);
+    }
+
+    private void reperer(int longueur) {
+        nbChamps = 0;
+        int debut = 0;
+        for (int i = 0; i < longueur; i++) {
+            if (tampon[i] == SEPARATEUR) {
+                ajouterChamp(debut, i);
+                debut = i + 1;
+            }
+        }
+        ajouterChamp(debut, longueur);
+
+        // Même comportement que String.split : une ligne sans séparateur est un champ, même vide //
+        if (nbChamps > 1) {
+            while (nbChamps > 0 && fins[nbChamps - 1] == debuts[nbChamps - 1]) {
+                nbChamps--;
+            }
+        }
+    }
+
+    private void ajouterChamp(int debut, int fin) {
+        if (nbChamps == debuts.length) {
+            debuts = Arrays.copyOf(debuts, nbChamps * 2);
+            fins = Arrays.copyOf(fins, nbChamps * 2);
+        }
+        debuts[nbChamps] = debut;
+        fins[nbChamps] = fin;
+        nbChamps++;
+    }
+
+    /**
+     * @return le nombre de champs de la ligne
+     */
+    public int getNbChamps() {
+        return nbChamps;
+    }
+
+    /**
+     * @param champ l'index du champ
+     * @return le nombre de caractères du champ
+     */
+    public int longueur(int champ) {
+        return fins[champ] - debuts[champ];
+    }
+
+    /**
+     * @param champ l'index du champ
+     * @param index la position du caractère dans le champ
+     * @return le caractère
+     */
+    public char charAt(int champ, int index) {
+        return tampon[debuts[champ] + index];
+    }
+
+    /**
+     * Crée la chaîne correspondant au champ : à réserver aux valeurs conservées et aux messages d'erreur
+     * @param champ l'index du champ
+     * @return le contenu du champ
+     */
+    public String champ(int champ) {
+        return new String(tampon, debuts[champ], longueur(champ));
+    }
+
+    /**
+     * Vérifie qu'un champ est un matricule ^[MTC][0-9]{5}$ (ou ^M[0-9]{5}$ pour un manager)
+     * et le code sous la forme d'un entier : index du type * 100000 + numéro.
+     * Automate : état 0 = attend la lettre du type, états 1 à 5 = attendent un chiffre.
+     * @param champ l'index du champ
+     * @param typesAcceptes les lettres de type acceptées, par exemple "MTC"
+     * @return le code du matricule entre 0 et typesAcceptes.length() * 100000 - 1, -1 s'il est incorrect
+     */
+    public int codeMatricule(int champ, String typesAcceptes) {
+        int debut = debuts[champ];
+        int fin = fins[champ];
+        if (fin - debut != 6) {
+            return -1;
+        }
+        int code = 0;
+        for (int etat = 0; etat < 6; etat++) {
+            char c = tampon[debut + etat];
+            if (etat == 0) {
+                int type = typesAcceptes.indexOf(c);
+                if (type < 0) {
+                    return -1;
+                }
+                code = type;
+            } else if (c >= '0' && c <= '9') {
+                code = code * 10 + (c - '0');
+            } else {
+                return -1;
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Convertit un champ au format dd/MM/yyyy (jour et mois sur 1 ou 2 chiffres, année sur 4 chiffres)
+     * @param champ l'index du champ
+     * @return la date
+     * @throws IllegalArgumentException si le champ n'est pas une date valide
+     */
+    public LocalDate parseDate(int champ) {
+        int position = debuts[champ];
+        int fin = fins[champ];
+        int jour = 0;
+        int mois = 0;
+        int annee = 0;
+        int partie = 0;
+        int chiffres = 0;
+        for (; position < fin; position++) {
+            char c = tampon[position];
+            if (c == '/') {
+                if (partie == 2 || chiffres == 0) {
+                    throw new IllegalArgumentException();
+                }
+                partie++;
+                chiffres = 0;
+            } else if (c >= '0' && c <= '9') {
+                chiffres++;
+                if (partie == 0) {
+                    jour = jour * 10 + (c - '0');
+                } else if (partie == 1) {
+                    mois = mois * 10 + (c - '0');
+                } else {
+                    annee = annee * 10 + (c - '0');
+                }
+                if (chiffres > (partie == 2 ? 4 : 2)) {
+                    throw new IllegalArgumentException();
+                }
+            } else {
+                throw new IllegalArgumentException();
+            }
+        }
+        if (partie != 2 || chiffres != 4) {
+            throw new IllegalArgumentException();
+        }
+        // Le constructeur vérifie que le jour existe dans le mois //
+        return new LocalDate(annee, mois, jour);
+    }
+
+    /**
+     * Convertit un champ en double. Les nombres décimaux simples (signe, au plus 15 chiffres, point décimal)
+     * sont convertis directement : mantisse et puissance de 10 étant exactes, la division donne le même
+     * résultat arrondi que Double.parseDouble. Les autres écritures passent par Double.parseDouble.
+     * @param champ l'index du champ
+     * @return la valeur du champ
+     * @throws NumberFormatException si le champ n'est pas un nombre valide
+     */
+    public double parseDouble(int champ) {
+        int position = debuts[champ];
+        int fin = fins[champ];
+        boolean negatif = false;
+        if (position < fin && (tampon[position] == '-' || tampon[position] == '+')) {
+            negatif = tampon[position] == '-';
+            position++;
+        }
+        long mantisse = 0;
+        int chiffres = 0;
+        int decimales = -1;
+        for (; position < fin; position++) {
+            char c = tampon[position];
+            if (c >= '0' && c <= '9') {
+                mantisse = mantisse * 10 + (c - '0');
+                chiffres++;
+                if (decimales >= 0) {
+                    decimales++;
+                }
+            } else if (c == '.' && decimales < 0) {
+                decimales = 0;
+            } else {
+                return Double.parseDouble(champ(champ));
+            }
+        }
+        if (chiffres == 0 || chiffres > MAX_CHIFFRES_DECIMAL) {
+            return Double.parseDouble(champ(champ));
+        }
+        double valeur = decimales > 0 ? mantisse / PUISSANCES_DE_10[decimales] : mantisse;
+        return negatif ? -valeur : valeur;
+    }
+
+    /**
+     * Convertit un champ en int, avec les mêmes règles que Integer.parseInt
+     * @param champ l'index du champ
+     * @return la valeur du champ
+     * @throws NumberFormatException si le champ n'est pas un entier valide
+     */
+    public int parseInt(int champ) {
+        int position = debuts[champ];
+        int fin = fins[champ];
+        boolean negatif = false;
+        if (position < fin && (tampon[position] == '-' || tampon[position] == '+')) {
+            negatif = tampon[position] == '-';
+            position++;
+        }
+        if (position == fin || fin - position > MAX_CHIFFRES_ENTIER) {
+            return Integer.parseInt(champ(champ));
+        }
+        int valeur = 0;
+        for (; position < fin; position++) {
+            char c = tampon[position];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(champ(champ));
+            }
+            valeur = valeur * 10 + (c - '0');
+        }
+        return negatif ? -valeur : valeur;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Paquet d'employés enregistré dans une transaction : les nouveaux employés, insérés par JPA,
+ * et en mode upsert les employés déjà en BDD dont le contenu a changé, mis à jour par batchs JDBC.
+ */
+public class EmployeChunk {
+
+    private final List<LigneEmploye> nouveaux = new ArrayList<>();
+
+    private final List<LigneEmploye> modifies = new ArrayList<>();
+
+    public void ajouterNouveau(LigneEmploye ligne) {
+        nouveaux.add(ligne);
+    }
+
+    public void ajouterModifie(LigneEmploye ligne) {
+        modifies.add(ligne);
+    }
+
+    public List<LigneEmploye> getNouveaux() {
+        return nouveaux;
+    }
+
+    public List<LigneEmploye> getModifies() {
+        return modifies;
+    }
+
+    public int size() {
+        return nouveaux.size() + modifies.size();
+    }
+
+    public void clear() {
+        nouveaux.clear();
+        modifies.clear();
+    }
+}
@@ -0,0 +1,171 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.NomRecherche;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.ImportJobRepository;
+import com.ipiecoles.java.java230.service.CacheEmployes;
+import com.ipiecoles.java.java230.service.StatistiquesSalairesService;
+import com.ipiecoles.java.java230.service.VariationSalaires;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Étape d'écriture de l'import : enregistre les employés par paquets (chunks), un paquet par transaction.
+ * Les INSERT d'un paquet sont regroupés en batchs JDBC par Hibernate (voir hibernate.jdbc.batch_size),
+ * puis le contexte de persistance est vidé pour que sa taille ne dépende pas de la taille du fichier.
+ * En mode upsert, les employés modifiés sont mis à jour par des UPDATE JDBC en batch dans la même transaction,
+ * et le cache des employés est vidé à la fin de la transaction.
+ * Les statistiques des salaires sont mises à jour une fois par paquet, dans la même transaction.
+ */
+@Component
+public class EmployeChunkWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ImportMetrics metrics;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    /**
+     * Enregistre un paquet d'employés dans une seule transaction. Les techniciens sont rattachés à leur manager
+     * par une référence sur son id, sans requête ; les managers enregistrés sont ajoutés à l'index.
+     * Le point de reprise de l'import est mis à jour dans la même transaction : il ne peut pas désigner
+     * un paquet qui n'a pas été enregistré, ni en oublier un qui l'a été.
+     * @param chunk les employés à insérer, dans l'ordre du fichier, et ceux à mettre à jour
+     * @param managers l'index des managers, qui doit contenir l'id du manager de chaque technicien
+     *                 ou le manager lui-même plus haut dans le paquet
+     * @param employes l'index des employés en mode upsert, qui reçoit l'id des employés insérés, null sinon
+     * @param checkpoint le suivi de l'import, qui connaît la ligne la plus loin enregistrée
+     * @param ligneReprise le point de reprise une fois le paquet enregistré
+     */
+    @Transactional
+    public void write(EmployeChunk chunk, ManagerIndex managers, EmployeIndex employes, ImportCheckpoint checkpoint, long ligneReprise) {
+        Session session = entityManager.unwrap(Session.class);
+        session.addEventListeners(new MesureBatchsJdbc());
+        // Les employés importés ne remplacent pas les employés lus fréquemment dans le cache //
+        session.setCacheMode(CacheMode.IGNORE);
+        VariationSalaires variation = new VariationSalaires();
+        for (LigneEmploye ligne : chunk.getNouveaux()) {
+            Employe employe = ligne.getEmploye();
+            variation.ajouter(StatistiquesSalaires.typeDe(employe), employe.getSalaire());
+            if (employe instanceof Technicien) {
+                Long idManager = managers.getId(ligne.getMatriculeManager());
+                ((Technicien) employe).setManager(entityManager.getReference(Manager.class, idManager));
+            }
+            entityManager.persist(employe);
+            if (employe instanceof Manager) {
+                managers.enregistrer(employe.getMatricule(), employe.getId());
+            }
+            if (employes != null) {
+                employes.enregistrer(Matricules.coder(employe.getMatricule()), employe.getId());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        if (!chunk.getModifies().isEmpty()) {
+            mettreAJour(chunk.getModifies(), managers, employes, variation);
+            cacheEmployes.invaliderApresTransaction();
+        }
+        statistiquesSalairesService.appliquer(variation);
+        importJobRepository.enregistrerCheckpoint(checkpoint.getIdJob(), ligneReprise,
+                checkpoint.getDerniereLigneEcrite(), (long) chunk.size());
+    }
+
+    /**
+     * Met à jour les employés modifiés : un batch JDBC pour la table Employe et un par table de type.
+     * La somme des anciens salaires de chaque type est lue avant les UPDATE pour la variation des statistiques.
+     */
+    private void mettreAJour(List<LigneEmploye> modifies, ManagerIndex managers, EmployeIndex employes, VariationSalaires variation) {
+        List<Object[]> employesModifies = new ArrayList<>(modifies.size());
+        List<Object[]> techniciensModifies = new ArrayList<>();
+        List<Object[]> commerciauxModifies = new ArrayList<>();
+        Map<String, List<Long>> idsParType = new HashMap<>();
+        Map<String, Double> nouvellesSommes = new HashMap<>();
+        for (LigneEmploye ligne : modifies) {
+            Employe employe = ligne.getEmploye();
+            long id = employes.getId(Matricules.coder(employe.getMatricule()));
+            String type = StatistiquesSalaires.typeDe(employe);
+            idsParType.computeIfAbsent(type, t -> new ArrayList<>()).add(id);
+            nouvellesSommes.merge(type, employe.getSalaire(), Double::sum);
+            employesModifies.add(new Object[]{employe.getNom(), employe.getPrenom(), NomRecherche.normaliser(employe.getNom()),
+                    NomRecherche.normaliser(employe.getPrenom()), new Date(employe.getDateEmbauche().toDate().getTime()),
+                    employe.getSalaire(), id});
+            if (employe instanceof Technicien) {
+                techniciensModifies.add(new Object[]{((Technicien) employe).getGrade(),
+                        managers.getId(ligne.getMatriculeManager()), id});
+            } else if (employe instanceof Commercial) {
+                commerciauxModifies.add(new Object[]{((Commercial) employe).getCaAnnuel(),
+                        ((Commercial) employe).getPerformance(), id});
+            }
+        }
+        for (Map.Entry<String, List<Long>> ids : idsParType.entrySet()) {
+            Double ancienneSomme = namedParameterJdbcTemplate.queryForObject(
+                    "select coalesce(sum(salaire), 0) from Employe where id in (:ids)",
+                    Collections.singletonMap("ids", ids.getValue()), Double.class);
+            variation.modifier(ids.getKey(), ancienneSomme, nouvellesSommes.get(ids.getKey()));
+        }
+        executerBatch("update Employe set nom = ?, prenom = ?, nomRecherche = ?, prenomRecherche = ?, dateEmbauche = ?, salaire = ? where id = ?", employesModifies);
+        executerBatch("update Technicien set grade = ?, manager_id = ? where id = ?", techniciensModifies);
+        executerBatch("update Commercial set caAnnuel = ?, performance = ? where id = ?", commerciauxModifies);
+    }
+
+    private void executerBatch(String sql, List<Object[]> parametres) {
+        if (!parametres.isEmpty()) {
+            long debut = System.nanoTime();
+            jdbcTemplate.batchUpdate(sql, parametres);
+            metrics.ajouterBatchJdbc(System.nanoTime() - debut);
+        }
+    }
+
+    /**
+     * Transmet aux métriques de l'import la durée de chaque batch JDBC exécuté par la session
+     */
+    private class MesureBatchsJdbc extends BaseSessionEventListener {
+
+        private long debutBatch;
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            debutBatch = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            metrics.ajouterBatchJdbc(System.nanoTime() - debutBatch);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Export de tous les employés dans un fichier CSV au format lu par l'import (voir {@link EmployeLineFormatter}),
+ * les managers d'abord pour que les techniciens trouvent leur manager à l'import.
+ * Les employés de chaque type sont lus par tranches d'ids consécutifs, chaque tranche en une requête JDBC
+ * mise en forme par un pool de threads. Les tranches sont écrites dans l'ordre des ids par le thread appelant
+ * et le nombre de tranches en cours est borné : la mémoire utilisée ne dépend pas du nombre d'employés.
+ */
+@Component
+public class EmployeExporter {
+
+    private static final String COLONNES = "select e.id, e.matricule, e.nom, e.prenom, e.dateEmbauche, e.salaire";
+
+    private static final String SELECT_MANAGERS = COLONNES + " from Employe e join Manager t on t.id = e.id";
+
+    private static final String SELECT_TECHNICIENS = COLONNES + ", t.grade, m.matricule as matriculeManager "
+            + "from Employe e join Technicien t on t.id = e.id left join Employe m on m.id = t.manager_id";
+
+    private static final String SELECT_COMMERCIAUX = COLONNES + ", t.caAnnuel, t.performance "
+            + "from Employe e join Commercial t on t.id = e.id";
+
+    private static final String TRANCHE = " where e.id between ? and ? order by e.id";
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Taille moyenne d'une ligne, pour dimensionner le tampon d'une tranche //
+    private static final int TAILLE_LIGNE = 64;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${batch.export.threads:0}")
+    private int nbThreads;
+
+    @Value("${batch.export.shard-size:20000}")
+    private int tailleTranche;
+
+    private final EmployeLineFormatter formatter = new EmployeLineFormatter();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param fichier le fichier à écrire, remplacé s'il existe
+     * @return le nombre d'employés exportés
+     * @throws IOException en cas de problème d'écriture du fichier
+     */
+    public long exporter(Path fichier) throws IOException {
+        long debut = System.nanoTime();
+        int threads = nbThreads > 0 ? nbThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, nouveauThreadFactory());
+        Deque<Future<Tranche>> tranchesEnCours = new ArrayDeque<>();
+        long nbEmployes = 0;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (String type : new String[]{"Manager", "Technicien", "Commercial"}) {
+                Map<String, Object> bornes = jdbcTemplate.queryForMap("select min(id) as debut, max(id) as fin from " + type);
+                if (bornes.get("debut") == null) {
+                    continue;
+                }
+                long fin = ((Number) bornes.get("fin")).longValue();
+                for (long tranche = ((Number) bornes.get("debut")).longValue(); tranche <= fin; tranche += tailleTranche) {
+                    long debutTranche = tranche;
+                    tranchesEnCours.add(executor.submit(() -> lire(type, debutTranche, debutTranche + tailleTranche - 1)));
+
+                    // Attend la plus ancienne tranche avant d'en lire d'autres si trop de tranches sont en cours //
+                    if (tranchesEnCours.size() >= 2 * threads) {
+                        nbEmployes += ecrire(tranchesEnCours.poll(), canal);
+                    }
+                }
+            }
+            while (!tranchesEnCours.isEmpty()) {
+                nbEmployes += ecrire(tranchesEnCours.poll(), canal);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long dureeMs = Math.max(1, (System.nanoTime() - debut) / 1_000_000);
+        logger.info("Export de {} employés dans {} en {} ms ({} lignes/s)", nbEmployes, fichier, dureeMs, nbEmployes * 1000 / dureeMs);
+        return nbEmployes;
+    }
+
+    /**
+     * Lit et met en forme les employés d'un type dont l'id est dans la tranche
+     */
+    private Tranche lire(String type, long debut, long fin) {
+        StringBuilder lignes = new StringBuilder(tailleTranche * TAILLE_LIGNE);
+        JdbcTemplate lecture = new JdbcTemplate(jdbcTemplate.getDataSource());
+        lecture.setFetchSize(FETCH_SIZE);
+        int[] nbLignes = {0};
+        switch (type) {
+            case "Manager":
+                lecture.query(SELECT_MANAGERS + TRANCHE, (ResultSet rs) -> {
+                    formatter.manager(lignes, rs.getString("matricule"), rs.getString("nom"), rs.getString("prenom"),
+                            date(rs.getDate("dateEmbauche")), (Double) rs.getObject("salaire"));
+                    nbLignes[0]++;
+                }, debut, fin);
+                break;
+            case "Technicien":
+                lecture.query(SELECT_TECHNICIENS + TRANCHE, (ResultSet rs) -> {
+                    formatter.technicien(lignes, rs.getString("matricule"), rs.getString("nom"), rs.getString("prenom"),
+                            date(rs.getDate("dateEmbauche")), (Double) rs.getObject("salaire"),
+                            (Integer) rs.getObject("grade"), rs.getString("matriculeManager"));
+                    nbLignes[0]++;
+                }, debut, fin);
+                break;
+            default:
+                lecture.query(SELECT_COMMERCIAUX + TRANCHE, (ResultSet rs) -> {
+                    formatter.commercial(lignes, rs.getString("matricule"), rs.getString("nom"), rs.getString("prenom"),
+                            date(rs.getDate("dateEmbauche")), (Double) rs.getObject("salaire"),
+                            (Double) rs.getObject("caAnnuel"), (Integer) rs.getObject("performance"));
+                    nbLignes[0]++;
+                }, debut, fin);
+        }
+        return new Tranche(ByteBuffer.wrap(lignes.toString().getBytes(StandardCharsets.UTF_8)), nbLignes[0]);
+    }
+
+    private static LocalDate date(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    private long ecrire(Future<Tranche> future, FileChannel canal) throws IOException {
+        try {
+            Tranche tranche = future.get();
+            while (tranche.octets.hasRemaining()) {
+                canal.write(tranche.octets);
+            }
+            return tranche.nbLignes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export des employés interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erreur inattendue lors de la lecture des employés", e.getCause());
+        }
+    }
+
+    private static ThreadFactory nouveauThreadFactory() {
+        AtomicInteger compteur = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "export-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Tranche {
+
+        private final ByteBuffer octets;
+
+        private final int nbLignes;
+
+        private Tranche(ByteBuffer octets, int nbLignes) {
+            this.octets = octets;
+            this.nbLignes = nbLignes;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.joda.time.LocalDate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Index des employés en BDD pour l'import en mode upsert : pour chaque matricule, l'id de l'employé et une empreinte
+ * de son contenu. Les deux tableaux sont indexés par le code du matricule ({@link Matricules}) : l'index occupe
+ * une taille fixe quelle que soit la taille de la table, et une ligne du fichier est classée (nouvelle, modifiée
+ * ou inchangée) sans requête ni allocation.
+ */
+public class EmployeIndex {
+
+    // Un employé absent a l'id 0, un employé lu dans le fichier mais pas encore enregistré l'id -1 //
+    public static final long ABSENT = 0;
+    public static final long NON_ENREGISTRE = -1;
+
+    private static final String SELECT_EMPLOYES = "select e.id, e.matricule, e.nom, e.prenom, e.dateEmbauche, e.salaire, "
+            + "t.grade, m.matricule as matriculeManager, c.caAnnuel, c.performance from Employe e "
+            + "left join Technicien t on t.id = e.id left join Employe m on m.id = t.manager_id "
+            + "left join Commercial c on c.id = e.id";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final long[] ids = new long[Matricules.NB_CODES];
+
+    private final long[] empreintes = new long[Matricules.NB_CODES];
+
+    /**
+     * Construit l'index en une seule requête, lue ligne à ligne
+     * @param jdbcTemplate l'accès à la BDD
+     * @return l'index des employés existants
+     */
+    public static EmployeIndex charger(JdbcTemplate jdbcTemplate) {
+        EmployeIndex index = new EmployeIndex();
+        JdbcTemplate lecture = new JdbcTemplate(jdbcTemplate.getDataSource());
+        lecture.setFetchSize(FETCH_SIZE);
+        lecture.query(SELECT_EMPLOYES, (ResultSet rs) -> {
+            int code = Matricules.coder(rs.getString("matricule"));
+            if (code >= 0) {
+                index.ids[code] = rs.getLong("id");
+                index.empreintes[code] = empreinte(rs);
+            }
+        });
+        return index;
+    }
+
+    /**
+     * @param code le code du matricule
+     * @return l'id de l'employé, {@link #ABSENT} ou {@link #NON_ENREGISTRE}
+     */
+    public long getId(int code) {
+        return ids[code];
+    }
+
+    public long getEmpreinte(int code) {
+        return empreintes[code];
+    }
+
+    /**
+     * Note le contenu d'un employé lu dans le fichier, avant son enregistrement
+     * @param code le code du matricule
+     * @param empreinte l'empreinte du contenu de l'employé
+     */
+    public void declarer(int code, long empreinte) {
+        if (ids[code] == ABSENT) {
+            ids[code] = NON_ENREGISTRE;
+        }
+        empreintes[code] = empreinte;
+    }
+
+    /**
+     * Renseigne l'id d'un employé une fois celui-ci enregistré
+     * @param code le code du matricule
+     * @param id l'id attribué à l'employé
+     */
+    public void enregistrer(int code, long id) {
+        ids[code] = id;
+    }
+
+    public int size() {
+        return (int) Arrays.stream(ids).filter(id -> id != ABSENT).count();
+    }
+
+    /**
+     * Empreinte du contenu d'un employé tel qu'il serait enregistré en BDD
+     * @param employe l'employé lu dans le fichier
+     * @param matriculeManager le matricule du manager pour un technicien, null sinon
+     * @return l'empreinte
+     */
+    public static long empreinte(Employe employe, String matriculeManager) {
+        long empreinte = empreinteEmploye(employe.getNom(), employe.getPrenom(), employe.getDateEmbauche(), employe.getSalaire());
+        if (employe instanceof Technicien) {
+            empreinte = melanger(empreinte, ((Technicien) employe).getGrade());
+            empreinte = melanger(empreinte, matriculeManager);
+        } else if (employe instanceof Commercial) {
+            empreinte = melanger(empreinte, ((Commercial) employe).getCaAnnuel());
+            empreinte = melanger(empreinte, ((Commercial) employe).getPerformance());
+        }
+        return empreinte;
+    }
+
+    private static long empreinte(ResultSet rs) throws SQLException {
+        java.sql.Date date = rs.getDate("dateEmbauche");
+        long empreinte = empreinteEmploye(rs.getString("nom"), rs.getString("prenom"),
+                date == null ? null : LocalDate.fromDateFields(date), valeur(rs, rs.getDouble("salaire")));
+        String matricule = rs.getString("matricule");
+        if (matricule.charAt(0) == 'T') {
+            empreinte = melanger(empreinte, valeur(rs, rs.getInt("grade")));
+            empreinte = melanger(empreinte, rs.getString("matriculeManager"));
+        } else if (matricule.charAt(0) == 'C') {
+            empreinte = melanger(empreinte, valeur(rs, rs.getDouble("caAnnuel")));
+            empreinte = melanger(empreinte, valeur(rs, rs.getInt("performance")));
+        }
+        return empreinte;
+    }
+
+    private static long empreinteEmploye(String nom, String prenom, LocalDate dateEmbauche, Double salaire) {
+        long empreinte = melanger(17, nom);
+        empreinte = melanger(empreinte, prenom);
+        empreinte = melanger(empreinte, dateEmbauche);
+        return melanger(empreinte, salaire);
+    }
+
+    private static long melanger(long empreinte, Object valeur) {
+        long hash;
+        if (valeur == null) {
+            hash = 0;
+        } else if (valeur instanceof Double) {
+            hash = Double.doubleToLongBits((Double) valeur);
+        } else {
+            hash = valeur.hashCode();
+        }
+        // Multiplication par un grand nombre impair, comme les tables de hachage par multiplication //
+        return (empreinte ^ hash) * 0x9E3779B97F4A7C15L + 1;
+    }
+
+    private static <T> T valeur(ResultSet rs, T valeur) throws SQLException {
+        return rs.wasNull() ? null : valeur;
+    }
+}
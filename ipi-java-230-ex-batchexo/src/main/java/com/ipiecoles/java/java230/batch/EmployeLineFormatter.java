@@ -0,0 +1,157 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Entreprise;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+
+import java.time.LocalDate;
+
+/**
+ * Écrit les employés au format des lignes lues par {@link EmployeLineParser}, l'inverse de l'analyse :
+ * <ul>
+ *     <li>M00001,nom,prenom,dd/MM/yyyy,salaire</li>
+ *     <li>T00001,nom,prenom,dd/MM/yyyy,salaire,grade,matriculeManager</li>
+ *     <li>C00001,nom,prenom,dd/MM/yyyy,salaire,caAnnuel,performance</li>
+ * </ul>
+ * Le salaire du fichier n'est pas celui de la BDD : l'import le multiplie par {@link Entreprise#INDICE_MANAGER}
+ * pour un manager et par (1 + grade / 10) pour un technicien. Le salaire écrit est le plus court en centimes, sinon
+ * en décimal, qui redonne exactement le salaire de la BDD une fois importé. Les salaires que l'import ne peut pas
+ * produire (augmentation d'un manager, manager enregistré avec son équipe) sont écrits au plus proche.
+ * La classe est sans état : elle peut être utilisée par plusieurs threads à la fois.
+ */
+public class EmployeLineFormatter {
+
+    private static final char SEPARATEUR = ',';
+
+    // Au-delà, les centimes ne sont plus représentés exactement en double //
+    private static final double MAX_CENTIMES = 1e13;
+
+    public StringBuilder manager(StringBuilder ligne, String matricule, String nom, String prenom,
+                                 LocalDate dateEmbauche, Double salaire) {
+        infosEmploye(ligne, matricule, nom, prenom, dateEmbauche);
+        ajouterSalaire(ligne, salaire, Entreprise.INDICE_MANAGER);
+        return ligne.append('\n');
+    }
+
+    public StringBuilder technicien(StringBuilder ligne, String matricule, String nom, String prenom,
+                                    LocalDate dateEmbauche, Double salaire, Integer grade, String matriculeManager) {
+        infosEmploye(ligne, matricule, nom, prenom, dateEmbauche);
+        ajouterSalaire(ligne, salaire, grade == null ? 1 : 1 + (double) grade / 10);
+        ligne.append(SEPARATEUR);
+        if (grade != null) {
+            ligne.append(grade.intValue());
+        }
+        ligne.append(SEPARATEUR);
+        ajouterTexte(ligne, matriculeManager);
+        return ligne.append('\n');
+    }
+
+    public StringBuilder commercial(StringBuilder ligne, String matricule, String nom, String prenom,
+                                    LocalDate dateEmbauche, Double salaire, Double caAnnuel, Integer performance) {
+        infosEmploye(ligne, matricule, nom, prenom, dateEmbauche);
+        ajouterSalaire(ligne, salaire, 1);
+        ligne.append(SEPARATEUR);
+        ajouterSalaire(ligne, caAnnuel, 1);
+        ligne.append(SEPARATEUR);
+        if (performance != null) {
+            ligne.append(performance.intValue());
+        }
+        return ligne.append('\n');
+    }
+
+    /**
+     * @param employe l'employé à écrire, avec son manager chargé s'il s'agit d'un technicien
+     * @return la ligne de l'employé, terminée par un retour à la ligne
+     */
+    public String formater(Employe employe) {
+        StringBuilder ligne = new StringBuilder(64);
+        LocalDate dateEmbauche = employe.getDateEmbauche() == null ? null : LocalDate.of(employe.getDateEmbauche().getYear(),
+                employe.getDateEmbauche().getMonthOfYear(), employe.getDateEmbauche().getDayOfMonth());
+        if (employe instanceof Manager) {
+            manager(ligne, employe.getMatricule(), employe.getNom(), employe.getPrenom(), dateEmbauche, employe.getSalaire());
+        } else if (employe instanceof Technicien) {
+            Technicien technicien = (Technicien) employe;
+            technicien(ligne, employe.getMatricule(), employe.getNom(), employe.getPrenom(), dateEmbauche, employe.getSalaire(),
+                    technicien.getGrade(), technicien.getManager() == null ? null : technicien.getManager().getMatricule());
+        } else {
+            Commercial commercial = (Commercial) employe;
+            commercial(ligne, employe.getMatricule(), employe.getNom(), employe.getPrenom(), dateEmbauche, employe.getSalaire(),
+                    commercial.getCaAnnuel(), commercial.getPerformance());
+        }
+        return ligne.toString();
+    }
+
+    private void infosEmploye(StringBuilder ligne, String matricule, String nom, String prenom, LocalDate dateEmbauche) {
+        ajouterTexte(ligne, matricule);
+        ligne.append(SEPARATEUR);
+        ajouterTexte(ligne, nom);
+        ligne.append(SEPARATEUR);
+        ajouterTexte(ligne, prenom);
+        ligne.append(SEPARATEUR);
+        if (dateEmbauche != null) {
+            ajouterDeuxChiffres(ligne, dateEmbauche.getDayOfMonth()).append('/');
+            ajouterDeuxChiffres(ligne, dateEmbauche.getMonthValue()).append('/').append(dateEmbauche.getYear());
+        }
+        ligne.append(SEPARATEUR);
+    }
+
+    private static void ajouterTexte(StringBuilder ligne, String texte) {
+        if (texte != null) {
+            ligne.append(texte);
+        }
+    }
+
+    private static StringBuilder ajouterDeuxChiffres(StringBuilder ligne, int valeur) {
+        if (valeur < 10) {
+            ligne.append('0');
+        }
+        return ligne.append(valeur);
+    }
+
+    /**
+     * Écrit la valeur du fichier qui, multipliée par le facteur comme le fait l'import, redonne la valeur stockée
+     * @param ligne la ligne en cours d'écriture
+     * @param stocke la valeur en BDD, rien n'est écrit si elle est nulle
+     * @param facteur le facteur appliqué par l'import
+     */
+    static void ajouterSalaire(StringBuilder ligne, Double stocke, double facteur) {
+        if (stocke == null) {
+            return;
+        }
+        double valeur = stocke / facteur;
+
+        // Cas courant : une valeur en centimes, convertie par l'analyse en centimes / 100.0 //
+        if (Math.abs(valeur) < MAX_CENTIMES) {
+            long centimes = Math.round(valeur * 100);
+            if (centimes / 100.0 * facteur == stocke) {
+                ajouterCentimes(ligne, centimes);
+                return;
+            }
+        }
+
+        // Sinon la division peut être à un ulp près de la valeur d'origine //
+        for (double candidat : new double[]{valeur, Math.nextDown(valeur), Math.nextUp(valeur)}) {
+            if (candidat * facteur == stocke) {
+                ligne.append(Double.toString(candidat));
+                return;
+            }
+        }
+        ligne.append(Double.toString(valeur));
+    }
+
+    private static void ajouterCentimes(StringBuilder ligne, long centimes) {
+        if (centimes < 0) {
+            ligne.append('-');
+            centimes = -centimes;
+        }
+        ligne.append(centimes / 100);
+        int decimales = (int) (centimes % 100);
+        if (decimales % 10 == 0) {
+            ligne.append('.').append(decimales / 10);
+        } else {
+            ajouterDeuxChiffres(ligne.append('.'), decimales);
+        }
+    }
+}
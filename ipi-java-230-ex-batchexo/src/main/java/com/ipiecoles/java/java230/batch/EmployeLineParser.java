@@ -0,0 +1,225 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.BatchException;
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+
+/**
+ * Analyse et valide les lignes du fichier CSV des employés.
+ * La classe ne dépend ni de la BDD ni d'un état partagé : elle peut être utilisée par plusieurs threads à la fois,
+ * chaque thread découpant ses lignes avec son propre {@link CsvLineTokenizer}.
+ */
+public class EmployeLineParser {
+
+    private static final String TYPES_MATRICULE = "MTC";
+    private static final String TYPES_MATRICULE_MANAGER = "M";
+    private static final char COMMENTAIRE = '#';
+    private static final int NB_CHAMPS_MANAGER = 5;
+    private static final int NB_CHAMPS_TECHNICIEN = 7;
+    private static final int NB_CHAMPS_COMMERCIAL = 7;
+
+    private final ThreadLocal<CsvLineTokenizer> tokenizers = ThreadLocal.withInitial(CsvLineTokenizer::new);
+
+    /**
+     * Analyse une ligne du fichier
+     * @param numero le numéro de la ligne dans le fichier (à partir de 1)
+     * @param ligne la ligne à analyser
+     * @return la ligne analysée, valide, rejetée avec la première erreur rencontrée ou ignorée si c'est un commentaire
+     */
+    public LigneEmploye parse(long numero, String ligne) {
+        CsvLineTokenizer tokenizer = tokenizers.get();
+        tokenizer.reset(ligne);
+        return parse(numero, tokenizer, ligne);
+    }
+
+    /**
+     * Analyse une ligne du fichier déjà décodée dans un tableau de caractères
+     * @param numero le numéro de la ligne dans le fichier (à partir de 1)
+     * @param caracteres les caractères de la ligne
+     * @param longueur le nombre de caractères de la ligne
+     * @param ligne le texte de la ligne pour les messages d'erreur, qui peut n'être décodé qu'à la demande
+     * @return la ligne analysée, valide, rejetée avec la première erreur rencontrée ou ignorée si c'est un commentaire
+     */
+    public LigneEmploye parse(long numero, char[] caracteres, int longueur, CharSequence ligne) {
+        CsvLineTokenizer tokenizer = tokenizers.get();
+        tokenizer.reset(caracteres, longueur);
+        return parse(numero, tokenizer, ligne);
+    }
+
+    private LigneEmploye parse(long numero, CsvLineTokenizer tokenizer, CharSequence ligne) {
+        // Les lignes commençant par # sont des commentaires, comme les erreurs du fichier de quarantaine //
+        if (tokenizer.getNbChamps() > 0 && tokenizer.longueur(0) > 0 && tokenizer.charAt(0, 0) == COMMENTAIRE) {
+            return LigneEmploye.ignoree(numero, ligne);
+        }
+        try {
+            Employe employe = processLine(tokenizer);
+            String matriculeManager = employe instanceof Technicien ? tokenizer.champ(6) : null;
+            return LigneEmploye.valide(numero, ligne, employe, matriculeManager);
+        } catch (BatchException e) {
+            return LigneEmploye.rejetee(numero, ligne, e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * Méthode qui regarde le premier caractère de la ligne et appelle la bonne méthode de création d'employé
+     * @param tokenizer la ligne à analyser, découpée en champs
+     * @return l'employé créé à partir de la ligne
+     * @throws BatchException si le type d'employé n'a pas été reconnu
+     */
+    private Employe processLine(CsvLineTokenizer tokenizer) throws BatchException {
+        if (tokenizer.getNbChamps() == 0 || tokenizer.longueur(0) == 0) {
+            throw new BatchException(CodeErreur.LIGNE_VIDE, "La ligne est vide");
+        }
+        char firstCarac = tokenizer.charAt(0, 0);
+        switch (firstCarac){
+
+            // La lettre T correspond à un Technicien //
+            case 'T':
+                return processTechnicien(tokenizer);
+
+            // La lettre M correspond à un Manager    //
+            case 'M':
+                return processManager(tokenizer);
+
+            // La lettre C correspond à un Commercial //
+            case 'C':
+                return processCommercial(tokenizer);
+
+            default:
+                throw new BatchException(CodeErreur.TYPE_INCONNU, "Type d'employé inconnu : " + firstCarac);
+        }
+    }
+
+    /**
+     * Méthode qui crée un Commercial à partir d'une ligne contenant les informations d'un commercial
+     * @param tokenizer la ligne contenant les infos du commercial à intégrer
+     * @return le commercial créé
+     * @throws BatchException s'il y a un problème sur cette ligne
+     */
+    private Commercial processCommercial(CsvLineTokenizer tokenizer) throws BatchException {
+        Commercial commercial = new Commercial();
+
+        // Vérifie que la ligne dispose du bon nombre d'élément //
+        // Renvoie une Exception si False                       //
+        if (tokenizer.getNbChamps() != NB_CHAMPS_COMMERCIAL) {
+            throw new BatchException(CodeErreur.NB_CHAMPS_INCORRECT, "La ligne commercial ne contient pas 7 éléments mais " + tokenizer.getNbChamps());
+        }
+
+        infosEmploye(commercial, tokenizer);
+
+        // Effectue la conversion du chiffre d'affaire en Double //
+        // Renvoie une erreur si la conversion de format echoue  //
+        try {
+            commercial.setCaAnnuel(tokenizer.parseDouble(5));
+        } catch (NumberFormatException e) {
+            throw new BatchException(CodeErreur.CA_INVALIDE, "Le chiffre d'affaire du commercial est incorrect : " + tokenizer.champ(5));
+        }
+
+        // Effectue la conversion de la performance en Integer //
+        // Renvoie une erreur si la conversion de format echoue //
+        try {
+            commercial.setPerformance(tokenizer.parseInt(6));
+        } catch (NumberFormatException e) {
+            throw new BatchException(CodeErreur.PERFORMANCE_INVALIDE, "La performance du commercial est incorrecte : " + tokenizer.champ(6));
+        }
+        return commercial;
+    }
+
+    /**
+     * Méthode qui crée un Manager à partir d'une ligne contenant les informations d'un manager
+     * @param tokenizer la ligne contenant les infos du manager à intégrer
+     * @return le manager créé
+     * @throws BatchException s'il y a un problème sur cette ligne
+     */
+    private Manager processManager(CsvLineTokenizer tokenizer) throws BatchException {
+        Manager manager = new Manager();
+
+        // Vérifie que la ligne dispose du bon nombre d'élément //
+        // Renvoie une Exception si False                       //
+        if (tokenizer.getNbChamps() != NB_CHAMPS_MANAGER) {
+            throw new BatchException(CodeErreur.NB_CHAMPS_INCORRECT, "La ligne manager ne contient pas 5 éléments mais " + tokenizer.getNbChamps());
+        }
+
+        infosEmploye(manager, tokenizer);
+        return manager;
+    }
+
+    /**
+     * Méthode qui crée un Technicien à partir d'une ligne contenant les informations d'un technicien
+     * @param tokenizer la ligne contenant les infos du technicien à intégrer
+     * @return le technicien créé
+     * @throws BatchException s'il y a un problème sur cette ligne
+     */
+    private Technicien processTechnicien(CsvLineTokenizer tokenizer) throws BatchException {
+        Technicien technicien = new Technicien();
+
+        // Vérifie que la ligne dispose du bon nombre d'élément //
+        // Renvoie une Exception si False                       //
+        if (tokenizer.getNbChamps() != NB_CHAMPS_TECHNICIEN) {
+            throw new BatchException(CodeErreur.NB_CHAMPS_INCORRECT, "La ligne technicien ne contient pas 7 éléments mais " + tokenizer.getNbChamps());
+        }
+
+        // Effectue la conversion du Grade en Integer                        //
+        // Renvoie une erreur si : -L'Integer n'est pas compris entre 1 et 5 //
+        //                         -La conversion de format echoue           //
+        try {
+            technicien.setGrade(tokenizer.parseInt(5));
+        } catch (TechnicienException e) {
+            throw new BatchException(CodeErreur.GRADE_HORS_LIMITES, "Le grade doit être compris entre 1 et 5 : " + tokenizer.champ(5));
+        } catch (NumberFormatException e) {
+            throw new BatchException(CodeErreur.GRADE_INVALIDE, "Le grade du technicien est incorrect : " + tokenizer.champ(5));
+        }
+
+        infosEmploye(technicien, tokenizer);
+
+        // Vérifie que le matricule du manager dont dépend le technicien respecte ^M[0-9]{5}$ //
+        // Le manager lui-même est recherché lors de l'écriture, qui connaît les managers déjà intégrés //
+        if (tokenizer.codeMatricule(6, TYPES_MATRICULE_MANAGER) < 0) {
+            throw new BatchException(CodeErreur.MATRICULE_MANAGER_INVALIDE, "la chaîne " + tokenizer.champ(6) + " ne respecte pas l'expression régulière ^M[0-9]{5}$");
+        }
+        return technicien;
+    }
+
+    /**
+     * Fonction permettant de regrouper les informations communes aux employés, peut-importe qu'il soit manager, tech ou commercial
+     * @param employe, instance d'employe se spécialisant ensuit en manager, tech ou commercial
+     * @param tokenizer, la ligne de texte découpée en champs
+     * @return employe
+     * @throws BatchException , divers exception détaillé si dessous
+     */
+    private Employe infosEmploye(Employe employe, CsvLineTokenizer tokenizer) throws BatchException {
+
+        // Vérifie que le matricule de l'employé respecte ^[MTC][0-9]{5}$ //
+        // Set le matricule si True                                       //
+        if (tokenizer.codeMatricule(0, TYPES_MATRICULE) < 0) {
+            throw new BatchException(CodeErreur.MATRICULE_INVALIDE, "la chaîne " + tokenizer.champ(0) + " ne respecte pas l'expression régulière ^[MTC][0-9]{5}$");
+        }
+        employe.setMatricule(tokenizer.champ(0));
+
+        // Le nom et le prénom sont libres //
+        employe.setNom(tokenizer.champ(1));
+        employe.setPrenom(tokenizer.champ(2));
+
+        // Vérifie que la date est bien au bon format  //
+        // Set la date si True                         //
+        try {
+            employe.setDateEmbauche(tokenizer.parseDate(3));
+        } catch (Exception e) {
+            throw new BatchException(CodeErreur.DATE_INVALIDE, tokenizer.champ(3) + " ne respecte pas le format de date dd/MM/yyyy");
+        }
+
+        // Convertit le salaire en Double                                    //
+        // Renvoie une exception si mauvais format ou problème de conversion //
+        try {
+            employe.setSalaire(tokenizer.parseDouble(4));
+        } catch (NumberFormatException e){
+            throw new BatchException(CodeErreur.SALAIRE_INVALIDE, tokenizer.champ(4) + " n'est pas un nombre valide pour un salaire");
+        }
+
+        return employe;
+    }
+}
@@ -0,0 +1,178 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.NomRecherche;
+import com.ipiecoles.java.java230.model.Technicien;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fichiers intermédiaires du chargement massif ({@link ChargementMassif}) : un fichier CSV par table de l'héritage
+ * JOINED, écrit au fil de l'import, avec une ligne d'en-tête. Les employés y sont repérés par leur rang dans le
+ * fichier importé (à partir de 0) : leurs ids ne sont réservés qu'au chargement, une fois le nombre d'employés connu.
+ * Le manager d'un technicien est désigné par son id s'il est en BDD, par son rang s'il est dans le fichier.
+ * Les fichiers sont supprimés à la fermeture.
+ */
+public class FichiersChargement implements Closeable {
+
+    /**
+     * Tables chargées, dans l'ordre du chargement, avec les colonnes de leur fichier
+     */
+    public enum Table {
+        EMPLOYE("Employe", "RANG,NOM,PRENOM,NOMRECHERCHE,PRENOMRECHERCHE,MATRICULE,DATEEMBAUCHE,SALAIRE"),
+        MANAGER("Manager", "RANG"),
+        TECHNICIEN("Technicien", "RANG,GRADE,IDMANAGER,RANGMANAGER"),
+        COMMERCIAL("Commercial", "RANG,CAANNUEL,PERFORMANCE");
+
+        private final String nom;
+
+        private final String colonnes;
+
+        Table(String nom, String colonnes) {
+            this.nom = nom;
+            this.colonnes = colonnes;
+        }
+
+        public String getNom() {
+            return nom;
+        }
+
+        public String[] getColonnes() {
+            return colonnes.split(",");
+        }
+    }
+
+    private static final char SEPARATEUR = ',';
+
+    private final Path repertoire;
+
+    private final Map<Table, BufferedWriter> writers = new EnumMap<>(Table.class);
+
+    // Rang des managers lus dans le fichier, qui n'ont pas encore d'id //
+    private final Map<String, Long> rangsManagers = new HashMap<>();
+
+    private final StringBuilder ligne = new StringBuilder();
+
+    private long nbEmployes;
+
+    /**
+     * Crée les fichiers dans un nouveau répertoire temporaire
+     * @throws IOException en cas de problème de création des fichiers
+     */
+    public FichiersChargement() throws IOException {
+        repertoire = Files.createTempDirectory("chargement-employes");
+        for (Table table : Table.values()) {
+            BufferedWriter writer = Files.newBufferedWriter(getFichier(table), StandardCharsets.UTF_8);
+            writers.put(table, writer);
+            writer.write(table.colonnes);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Ajoute l'employé d'une ligne aux fichiers de sa table et de la table Employe
+     * @param ligne la ligne valide de l'employé
+     * @param managers l'index des managers, qui contient l'id du manager d'un technicien s'il est en BDD
+     *                 ou son matricule s'il a été ajouté plus haut
+     */
+    public void ajouter(LigneEmploye ligne, ManagerIndex managers) {
+        Employe employe = ligne.getEmploye();
+        long rang = nbEmployes++;
+        this.ligne.setLength(0);
+        this.ligne.append(rang);
+        texte(employe.getNom());
+        texte(employe.getPrenom());
+        texte(NomRecherche.normaliser(employe.getNom()));
+        texte(NomRecherche.normaliser(employe.getPrenom()));
+        texte(employe.getMatricule());
+        this.ligne.append(SEPARATEUR).append(employe.getDateEmbauche());
+        this.ligne.append(SEPARATEUR).append(employe.getSalaire());
+        ecrire(Table.EMPLOYE);
+
+        this.ligne.setLength(0);
+        this.ligne.append(rang);
+        if (employe instanceof Manager) {
+            rangsManagers.put(employe.getMatricule(), rang);
+            ecrire(Table.MANAGER);
+        } else if (employe instanceof Technicien) {
+            Long idManager = managers.getId(ligne.getMatriculeManager());
+            this.ligne.append(SEPARATEUR).append(((Technicien) employe).getGrade());
+            this.ligne.append(SEPARATEUR).append(idManager != null ? idManager.toString() : "");
+            this.ligne.append(SEPARATEUR).append(idManager != null ? "" : rangsManagers.get(ligne.getMatriculeManager()).toString());
+            ecrire(Table.TECHNICIEN);
+        } else if (employe instanceof Commercial) {
+            this.ligne.append(SEPARATEUR).append(((Commercial) employe).getCaAnnuel());
+            this.ligne.append(SEPARATEUR).append(((Commercial) employe).getPerformance());
+            ecrire(Table.COMMERCIAL);
+        }
+    }
+
+    /**
+     * Termine l'écriture des fichiers avant leur chargement
+     * @throws IOException en cas de problème d'écriture
+     */
+    public void terminer() throws IOException {
+        for (BufferedWriter writer : writers.values()) {
+            writer.flush();
+        }
+    }
+
+    public Path getFichier(Table table) {
+        return repertoire.resolve(table.nom + ".csv");
+    }
+
+    /**
+     * @return le nombre d'employés ajoutés, qui sont les rangs 0 à nbEmployes - 1
+     */
+    public long getNbEmployes() {
+        return nbEmployes;
+    }
+
+    /**
+     * Ferme et supprime les fichiers
+     */
+    @Override
+    public void close() throws IOException {
+        for (Table table : Table.values()) {
+            writers.get(table).close();
+            Files.deleteIfExists(getFichier(table));
+        }
+        Files.deleteIfExists(repertoire);
+    }
+
+    /**
+     * Ajoute un champ texte entre guillemets, les guillemets du texte étant doublés
+     */
+    private void texte(String valeur) {
+        ligne.append(SEPARATEUR).append('"');
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            ligne.append(c);
+            if (c == '"') {
+                ligne.append('"');
+            }
+        }
+        ligne.append('"');
+    }
+
+    private void ecrire(Table table) {
+        try {
+            BufferedWriter writer = writers.get(table);
+            writer.append(ligne);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
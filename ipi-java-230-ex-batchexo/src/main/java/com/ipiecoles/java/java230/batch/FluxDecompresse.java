@@ -0,0 +1,204 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Flux décompressé d'un fichier gzip ou zip, détecté par ses premiers octets et non par son extension.
+ * La décompression est faite par un thread dédié, en avance de la lecture : elle se superpose à l'analyse
+ * des lignes et à l'écriture en BDD. Les blocs décompressés sont passés par une file et réutilisés,
+ * le nombre de blocs limitant l'avance du thread de décompression.
+ * Les fichiers gzip à plusieurs membres (concaténés) sont lus en entier ; pour une archive zip,
+ * seul le premier fichier est lu.
+ */
+public class FluxDecompresse extends InputStream {
+
+    // Taille des lectures dans le fichier compressé //
+    private static final int TAILLE_LECTURE = 256 * 1024;
+
+    private static final int TAILLE_BLOC = 1024 * 1024;
+
+    private static final int NB_BLOCS = 4;
+
+    private static final ByteBuffer FIN = ByteBuffer.allocate(0);
+
+    private static final int GZIP = 0x1f8b;
+
+    private static final int ZIP = 0x504b0304;
+
+    private final InputStream decompresse;
+
+    // Blocs disponibles pour le thread de décompression, blocs décompressés en attente de lecture //
+    private final BlockingQueue<byte[]> libres = new ArrayBlockingQueue<>(NB_BLOCS);
+    private final BlockingQueue<ByteBuffer> pleins = new LinkedBlockingQueue<>();
+
+    private final Thread decompresseur;
+
+    private volatile IOException erreur;
+
+    private ByteBuffer courant;
+
+    private FluxDecompresse(InputStream decompresse) {
+        this.decompresse = decompresse;
+        for (int i = 0; i < NB_BLOCS; i++) {
+            libres.add(new byte[TAILLE_BLOC]);
+        }
+        decompresseur = new Thread(this::decompresser, "import-decompression");
+        decompresseur.setDaemon(true);
+        decompresseur.start();
+    }
+
+    /**
+     * Ouvre un flux en le décompressant s'il est au format gzip ou zip
+     * @param flux le flux, fermé avec le flux renvoyé
+     * @return le flux décompressé, ou le flux lui-même s'il n'est pas compressé
+     * @throws IOException en cas de problème de lecture de l'en-tête, ou si l'archive zip est vide
+     */
+    public static InputStream ouvrir(InputStream flux) throws IOException {
+        BufferedInputStream entree = new BufferedInputStream(flux, TAILLE_LECTURE);
+        entree.mark(4);
+        int magique = lireMagique(entree);
+        entree.reset();
+        if (magique >>> 16 == GZIP) {
+            return new FluxDecompresse(new GZIPInputStream(entree, TAILLE_LECTURE));
+        }
+        if (magique == ZIP) {
+            ZipInputStream zip = new ZipInputStream(entree);
+            if (zip.getNextEntry() == null) {
+                zip.close();
+                throw new IOException("L'archive zip ne contient aucun fichier");
+            }
+            return new FluxDecompresse(zip);
+        }
+        return entree;
+    }
+
+    /**
+     * @param fichier le fichier
+     * @return true si le fichier est compressé au format gzip ou zip
+     * @throws IOException en cas de problème de lecture du fichier
+     */
+    public static boolean estCompresse(Path fichier) throws IOException {
+        try (InputStream flux = Files.newInputStream(fichier)) {
+            int magique = lireMagique(flux);
+            return magique >>> 16 == GZIP || magique == ZIP;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!blocSuivant()) {
+            return -1;
+        }
+        return courant.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!blocSuivant()) {
+            return -1;
+        }
+        int nbOctets = Math.min(len, courant.remaining());
+        courant.get(b, off, nbOctets);
+        return nbOctets;
+    }
+
+    /**
+     * Arrête la décompression et ferme le fichier
+     */
+    @Override
+    public void close() throws IOException {
+        decompresseur.interrupt();
+        try {
+            decompresseur.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        decompresse.close();
+    }
+
+    /**
+     * Passe au bloc décompressé suivant si le bloc courant est entièrement lu
+     * @return false à la fin du flux
+     * @throws IOException si la décompression a échoué, à chaque lecture après l'échec
+     */
+    private boolean blocSuivant() throws IOException {
+        if (courant != null && courant.hasRemaining()) {
+            return true;
+        }
+        if (courant != FIN) {
+            if (courant != null) {
+                libres.add(courant.array());
+            }
+            try {
+                courant = pleins.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Décompression du fichier interrompue", e);
+            }
+        }
+        if (courant == FIN && erreur != null) {
+            throw erreur;
+        }
+        return courant != FIN;
+    }
+
+    private void decompresser() {
+        boolean interrompu = false;
+        try {
+            int nbOctets = TAILLE_BLOC;
+            while (nbOctets == TAILLE_BLOC) {
+                byte[] bloc = libres.take();
+                nbOctets = lire(decompresse, bloc, TAILLE_BLOC);
+                if (nbOctets > 0) {
+                    pleins.add(ByteBuffer.wrap(bloc, 0, nbOctets));
+                }
+            }
+        } catch (InterruptedException e) {
+            // Flux fermé avant la fin de la lecture //
+            interrompu = true;
+        } catch (Throwable e) {
+            // Toute erreur est remontée à la lecture, sans quoi le lecteur attendrait indéfiniment la fin du flux //
+            erreur = e instanceof IOException ? (IOException) e : new IOException("Échec de la décompression du fichier", e);
+        } finally {
+            if (!interrompu) {
+                pleins.add(FIN);
+            }
+        }
+    }
+
+    /**
+     * @return les 4 premiers octets du flux, 0 s'il est plus court
+     */
+    private static int lireMagique(InputStream flux) throws IOException {
+        byte[] entete = new byte[4];
+        if (lire(flux, entete, entete.length) < entete.length) {
+            return 0;
+        }
+        return (entete[0] & 0xff) << 24 | (entete[1] & 0xff) << 16 | (entete[2] & 0xff) << 8 | entete[3] & 0xff;
+    }
+
+    /**
+     * Lit jusqu'à nbOctets octets, moins seulement à la fin du flux
+     */
+    private static int lire(InputStream flux, byte[] tampon, int nbOctets) throws IOException {
+        int lus = 0;
+        int n;
+        while (lus < nbOctets && (n = flux.read(tampon, lus, nbOctets - lus)) > 0) {
+            lus += n;
+        }
+        return lus;
+    }
+}
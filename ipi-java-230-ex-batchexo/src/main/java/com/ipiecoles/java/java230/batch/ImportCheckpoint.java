@@ -0,0 +1,91 @@
+package com.ipiecoles.java.java230.batch;
+
+/**
+ * Point de reprise d'un import en cours.
+ * Le point de reprise est la dernière ligne telle que toutes les lignes précédentes sont traitées. Il ne peut pas
+ * dépasser le premier technicien en attente de son manager, qui ne sera écrit qu'en fin de fichier : les lignes
+ * suivantes déjà enregistrées sont alors relues lors d'une reprise, et ignorées grâce à leur matricule,
+ * présent en BDD au début de la reprise ({@link MatriculeRegistry}). Les rejets de ces lignes sont conservés
+ * dans le fichier de quarantaine ({@link QuarantaineRejets}).
+ */
+public class ImportCheckpoint {
+
+    private final Long idJob;
+
+    private final long ligneReprise;
+
+    private final long derniereLigneEcriteAvantReprise;
+
+    private final boolean ignorerEnregistrees;
+
+    private long derniereLigneEcrite;
+
+    /**
+     * @param idJob l'id du suivi de l'import
+     * @param ligneReprise les lignes jusqu'à celle-ci sont déjà traitées
+     * @param derniereLigneEcriteAvantReprise la ligne la plus loin enregistrée avant la reprise
+     * @param ignorerEnregistrees true si les lignes entre les deux précédentes dont le matricule est en BDD sont à ignorer,
+     *                            false en mode upsert, où les réécrire ne change rien
+     */
+    public ImportCheckpoint(Long idJob, long ligneReprise, long derniereLigneEcriteAvantReprise, boolean ignorerEnregistrees) {
+        this.idJob = idJob;
+        this.ligneReprise = ligneReprise;
+        this.derniereLigneEcriteAvantReprise = derniereLigneEcriteAvantReprise;
+        this.ignorerEnregistrees = ignorerEnregistrees;
+        this.derniereLigneEcrite = derniereLigneEcriteAvantReprise;
+    }
+
+    /**
+     * @param idJob l'id du suivi de l'import
+     * @return le point de départ d'un nouvel import
+     */
+    public static ImportCheckpoint nouveau(Long idJob) {
+        return new ImportCheckpoint(idJob, 0, 0, false);
+    }
+
+    /**
+     * @param ligne une ligne analysée
+     * @param matricules le registre des matricules de l'import, chargé au début de la reprise
+     * @return true si la ligne a été traitée avant la reprise et ne doit pas l'être à nouveau
+     */
+    public boolean dejaTraitee(LigneEmploye ligne, MatriculeRegistry matricules) {
+        if (ligne.getNumero() <= ligneReprise) {
+            return true;
+        }
+        return ignorerEnregistrees && ligne.getNumero() <= derniereLigneEcriteAvantReprise && ligne.getEmploye() != null
+                && matricules.isEnBase(Matricules.coder(ligne.getEmploye().getMatricule()));
+    }
+
+    /**
+     * Note une ligne ajoutée au paquet en cours
+     * @param ligne la ligne à enregistrer
+     */
+    public void ajoutee(LigneEmploye ligne) {
+        derniereLigneEcrite = Math.max(derniereLigneEcrite, ligne.getNumero());
+    }
+
+    /**
+     * @param premiereLigneEnAttente le numéro du premier technicien en attente de son manager, 0 s'il n'y en a pas
+     * @return le point de reprise une fois le paquet en cours enregistré
+     */
+    public long calculerLigneReprise(long premiereLigneEnAttente) {
+        long reprise = premiereLigneEnAttente > 0 ? Math.min(derniereLigneEcrite, premiereLigneEnAttente - 1) : derniereLigneEcrite;
+        return Math.max(reprise, ligneReprise);
+    }
+
+    public Long getIdJob() {
+        return idJob;
+    }
+
+    public long getLigneReprise() {
+        return ligneReprise;
+    }
+
+    public long getDerniereLigneEcriteAvantReprise() {
+        return derniereLigneEcriteAvantReprise;
+    }
+
+    public long getDerniereLigneEcrite() {
+        return derniereLigneEcrite;
+    }
+}
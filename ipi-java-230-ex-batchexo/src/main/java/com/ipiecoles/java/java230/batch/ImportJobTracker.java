@@ -0,0 +1,58 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.ImportJob;
+import com.ipiecoles.java.java230.repository.ImportJobRepository;
+import org.joda.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Crée ou reprend le suivi (ImportJob) d'un import. Un import est repris lorsqu'un import du même fichier
+ * (même nom, même taille, même date de modification) ne s'est pas terminé.
+ */
+@Component
+public class ImportJobTracker {
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param fichier le nom ou le chemin du fichier
+     * @param tailleFichier la taille du fichier en octets
+     * @param dateModification la date de modification du fichier en millisecondes
+     * @param upsert true si l'import met à jour les employés existants : il est alors idempotent par lui-même
+     *               et les lignes après le point de reprise n'ont pas besoin d'être reconnues par leur matricule
+     * @return le point de départ de l'import : le début du fichier, ou le point de reprise d'un import interrompu
+     */
+    @Transactional
+    public ImportCheckpoint demarrer(String fichier, long tailleFichier, long dateModification, boolean upsert) {
+        ImportJob job = importJobRepository.findFirstByFichierAndTailleFichierAndDateModificationAndStatutOrderByIdDesc(
+                fichier, tailleFichier, dateModification, ImportJob.Statut.EN_COURS);
+        if (job == null) {
+            job = importJobRepository.save(new ImportJob(fichier, tailleFichier, dateModification));
+            return ImportCheckpoint.nouveau(job.getId());
+        }
+
+        logger.info("Reprise de l'import " + job.getId() + " du fichier " + fichier + " après la ligne " + job.getLigneReprise()
+                + " (" + job.getNbEmployes() + " employés déjà intégrés)");
+        return new ImportCheckpoint(job.getId(), job.getLigneReprise(), job.getDerniereLigneEcrite(), !upsert);
+    }
+
+    /**
+     * Marque l'import comme terminé : un nouvel import du même fichier repartira du début
+     * @param checkpoint le point de reprise de l'import
+     * @param nbLignes le nombre de lignes du fichier
+     */
+    @Transactional
+    public void terminer(ImportCheckpoint checkpoint, long nbLignes) {
+        ImportJob job = importJobRepository.findOne(checkpoint.getIdJob());
+        job.setStatut(ImportJob.Statut.TERMINE);
+        job.setLigneReprise(nbLignes);
+        job.setDateFin(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,362 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métriques de l'import en cours ou du dernier import : lignes lues, analysées et rejetées par type d'employé et par erreur,
+ * temps passé dans chaque étape, batchs JDBC et pic de mémoire heap.
+ * Les compteurs peuvent être mis à jour par les threads d'analyse et lus par JMX pendant l'import.
+ */
+@Component
+@ManagedResource(objectName = "com.ipiecoles.java.java230:type=ImportMetrics", description = "Métriques de l'import CSV des employés")
+public class ImportMetrics {
+
+    /**
+     * Étapes de l'import. Le temps d'analyse est cumulé sur tous les threads d'analyse,
+     * les autres étapes se déroulent dans le thread de l'import.
+     */
+    public enum Etape {
+        LECTURE, ANALYSE, RESOLUTION, ECRITURE
+    }
+
+    // Index des compteurs par type : manager, technicien, commercial, type inconnu //
+    private static final String TYPES = "MTC";
+    private static final String[] LIBELLES_TYPES = {"managers", "techniciens", "commerciaux", "type inconnu"};
+
+    private final LongAdder lignesLues = new LongAdder();
+
+    private final LongAdder[] lignesAnalysees = compteurs(TYPES.length() + 1);
+
+    private final LongAdder[] lignesRejetees = compteurs(TYPES.length() + 1);
+
+    private final LongAdder[] rejetsParErreur = compteurs(CodeErreur.values().length);
+
+    private final LongAdder lignesIgnorees = new LongAdder();
+
+    private final LongAdder lignesDejaTraitees = new LongAdder();
+
+    private final LongAdder employesEnregistres = new LongAdder();
+
+    private final LongAdder employesMisAJour = new LongAdder();
+
+    private final LongAdder lignesInchangees = new LongAdder();
+
+    private final LongAdder[] tempsEtapes = compteurs(Etape.values().length);
+
+    private final LongAdder batchsJdbc = new LongAdder();
+
+    private final LongAdder tempsBatchsJdbc = new LongAdder();
+
+    private volatile long debut;
+
+    private volatile long fin;
+
+    /**
+     * Remet les compteurs à zéro au début d'un import
+     */
+    public void demarrer() {
+        lignesLues.reset();
+        lignesDejaTraitees.reset();
+        lignesIgnorees.reset();
+        employesEnregistres.reset();
+        employesMisAJour.reset();
+        lignesInchangees.reset();
+        batchsJdbc.reset();
+        tempsBatchsJdbc.reset();
+        for (int i = 0; i < lignesAnalysees.length; i++) {
+            lignesAnalysees[i].reset();
+            lignesRejetees[i].reset();
+        }
+        for (LongAdder rejets : rejetsParErreur) {
+            rejets.reset();
+        }
+        for (LongAdder temps : tempsEtapes) {
+            temps.reset();
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        fin = 0;
+        debut = System.nanoTime();
+    }
+
+    /**
+     * Arrête le chronomètre de l'import
+     */
+    public void terminer() {
+        fin = System.nanoTime();
+    }
+
+    public void ajouterLignesLues(int nbLignes) {
+        lignesLues.add(nbLignes);
+    }
+
+    /**
+     * Compte une ligne sortie de l'analyse, valide, rejetée ou de commentaire
+     * @param ligne la ligne analysée
+     */
+    public void ligneAnalysee(LigneEmploye ligne) {
+        if (ligne.isRejetee()) {
+            ligneRejetee(ligne, ligne.getCode());
+        } else if (ligne.isIgnoree()) {
+            lignesIgnorees.increment();
+        } else {
+            lignesAnalysees[indexType(ligne)].increment();
+        }
+    }
+
+    /**
+     * Compte une ligne rejetée, à l'analyse ou lors de la vérification du matricule et du manager
+     * @param ligne la ligne rejetée
+     * @param code le code de l'erreur
+     */
+    public void ligneRejetee(LigneEmploye ligne, CodeErreur code) {
+        lignesRejetees[indexType(ligne)].increment();
+        rejetsParErreur[code.ordinal()].increment();
+    }
+
+    /**
+     * Compte une ligne ignorée car traitée avant la reprise d'un import interrompu
+     */
+    public void ligneDejaTraitee() {
+        lignesDejaTraitees.increment();
+    }
+
+    public void ajouterEmployesEnregistres(long nbEmployes) {
+        employesEnregistres.add(nbEmployes);
+    }
+
+    /**
+     * @param nbEmployes le nombre d'employés existants mis à jour en mode upsert, compris dans les employés enregistrés
+     */
+    public void ajouterEmployesMisAJour(int nbEmployes) {
+        employesMisAJour.add(nbEmployes);
+    }
+
+    /**
+     * Compte une ligne ignorée en mode upsert car l'employé en BDD est identique
+     */
+    public void ligneInchangee() {
+        lignesInchangees.increment();
+    }
+
+    public void ajouterTemps(Etape etape, long nanos) {
+        tempsEtapes[etape.ordinal()].add(nanos);
+    }
+
+    /**
+     * Compte un batch JDBC exécuté
+     * @param nanos la durée d'exécution du batch
+     */
+    public void ajouterBatchJdbc(long nanos) {
+        batchsJdbc.increment();
+        tempsBatchsJdbc.add(nanos);
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes lues")
+    public long getLignesLues() {
+        return lignesLues.sum();
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes rejetées")
+    public long getLignesRejetees() {
+        long total = 0;
+        for (LongAdder compteur : lignesRejetees) {
+            total += compteur.sum();
+        }
+        return total;
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes rejetées par code d'erreur")
+    public String getRejetsParErreur() {
+        StringBuilder detail = new StringBuilder();
+        for (CodeErreur code : CodeErreur.values()) {
+            long valeur = rejetsParErreur[code.ordinal()].sum();
+            if (valeur > 0) {
+                detail.append(detail.length() == 0 ? "" : ", ").append(code).append(' ').append(valeur);
+            }
+        }
+        return detail.toString();
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes de commentaire ignorées")
+    public long getLignesIgnorees() {
+        return lignesIgnorees.sum();
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes ignorées car traitées avant la reprise de l'import")
+    public long getLignesDejaTraitees() {
+        return lignesDejaTraitees.sum();
+    }
+
+    @ManagedAttribute(description = "Nombre d'employés enregistrés en BDD")
+    public long getEmployesEnregistres() {
+        return employesEnregistres.sum();
+    }
+
+    @ManagedAttribute(description = "Nombre d'employés existants mis à jour en mode upsert")
+    public long getEmployesMisAJour() {
+        return employesMisAJour.sum();
+    }
+
+    @ManagedAttribute(description = "Nombre de lignes identiques à l'employé en BDD en mode upsert")
+    public long getLignesInchangees() {
+        return lignesInchangees.sum();
+    }
+
+    @ManagedAttribute(description = "Durée de l'import en millisecondes")
+    public long getDureeMs() {
+        long debutImport = debut;
+        if (debutImport == 0) {
+            return 0;
+        }
+        return ((fin != 0 ? fin : System.nanoTime()) - debutImport) / 1_000_000;
+    }
+
+    @ManagedAttribute(description = "Lignes lues par seconde")
+    public long getLignesParSeconde() {
+        long duree = getDureeMs();
+        return duree == 0 ? 0 : getLignesLues() * 1000 / duree;
+    }
+
+    @ManagedAttribute(description = "Temps de lecture du fichier en millisecondes")
+    public long getTempsLectureMs() {
+        return getTempsMs(Etape.LECTURE);
+    }
+
+    @ManagedAttribute(description = "Temps d'analyse des lignes en millisecondes, cumulé sur les threads d'analyse")
+    public long getTempsAnalyseMs() {
+        return getTempsMs(Etape.ANALYSE);
+    }
+
+    @ManagedAttribute(description = "Temps de recherche des managers en millisecondes")
+    public long getTempsResolutionMs() {
+        return getTempsMs(Etape.RESOLUTION);
+    }
+
+    @ManagedAttribute(description = "Temps d'écriture en BDD en millisecondes")
+    public long getTempsEcritureMs() {
+        return getTempsMs(Etape.ECRITURE);
+    }
+
+    @ManagedAttribute(description = "Nombre de batchs JDBC exécutés")
+    public long getBatchsJdbc() {
+        return batchsJdbc.sum();
+    }
+
+    /**
+     * @return le nombre moyen d'employés enregistrés par batch JDBC exécuté. Avec l'héritage JOINED, Hibernate
+     * ne regroupe que les INSERT de la table Employe et exécute celui de la table du type à part : une valeur
+     * proche de 1 signifie que le regroupement en batchs ne se fait pas.
+     */
+    @ManagedAttribute(description = "Nombre moyen d'employés enregistrés par batch JDBC")
+    public double getEmployesParBatchJdbc() {
+        long nbBatchs = getBatchsJdbc();
+        return nbBatchs == 0 ? 0 : (double) getEmployesEnregistres() / nbBatchs;
+    }
+
+    /**
+     * @return la somme des pics d'utilisation des zones de la heap depuis le début de l'import,
+     * qui majore le pic réel car les zones n'atteignent pas forcément leur pic au même moment
+     */
+    @ManagedAttribute(description = "Pic de mémoire heap depuis le début de l'import, en octets")
+    public long getPicHeap() {
+        long pic = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pic += pool.getPeakUsage().getUsed();
+            }
+        }
+        return pic;
+    }
+
+    public long getTempsMs(Etape etape) {
+        return tempsEtapes[etape.ordinal()].sum() / 1_000_000;
+    }
+
+    /**
+     * @return le rapport de fin d'import, une métrique par ligne
+     */
+    public String rapport() {
+        StringBuilder rapport = new StringBuilder("Rapport d'import :");
+        ajouter(rapport, "Durée", String.format(Locale.ROOT, "%.2f s (%d lignes/s)", getDureeMs() / 1000.0, getLignesParSeconde()));
+        ajouter(rapport, "Lignes lues", String.valueOf(getLignesLues()));
+        if (getLignesDejaTraitees() > 0) {
+            ajouter(rapport, "Lignes déjà traitées", String.valueOf(getLignesDejaTraitees()));
+        }
+        ajouter(rapport, "Lignes analysées", parType(lignesAnalysees));
+        if (getLignesIgnorees() > 0) {
+            ajouter(rapport, "Commentaires ignorés", String.valueOf(getLignesIgnorees()));
+        }
+        ajouter(rapport, "Lignes rejetées", getLignesRejetees() + " (" + parType(lignesRejetees) + ")");
+        if (getLignesRejetees() > 0) {
+            ajouter(rapport, "Rejets par erreur", getRejetsParErreur());
+        }
+        ajouter(rapport, "Employés enregistrés", String.valueOf(getEmployesEnregistres()));
+        if (getEmployesMisAJour() > 0 || getLignesInchangees() > 0) {
+            ajouter(rapport, "Mode upsert", getEmployesMisAJour() + " mis à jour, " + getLignesInchangees() + " inchangés");
+        }
+        ajouter(rapport, "Temps par étape", String.format(Locale.ROOT,
+                "lecture %d ms, analyse %d ms (cumul des threads), résolution %d ms, écriture %d ms",
+                getTempsLectureMs(), getTempsAnalyseMs(), getTempsResolutionMs(), getTempsEcritureMs()));
+        ajouter(rapport, "Batchs JDBC", String.format(Locale.ROOT, "%d (%.1f employés par batch, %d ms)",
+                getBatchsJdbc(), getEmployesParBatchJdbc(), tempsBatchsJdbc.sum() / 1_000_000));
+        ajouter(rapport, "Pic de mémoire heap", (getPicHeap() / (1024 * 1024)) + " Mo");
+        return rapport.toString();
+    }
+
+    private static void ajouter(StringBuilder rapport, String libelle, String valeur) {
+        rapport.append(String.format(Locale.ROOT, "%n  %-22s: %s", libelle, valeur));
+    }
+
+    private static String parType(LongAdder[] compteurs) {
+        StringBuilder detail = new StringBuilder();
+        for (int i = 0; i < compteurs.length; i++) {
+            long valeur = compteurs[i].sum();
+            if (valeur > 0 || i < TYPES.length()) {
+                detail.append(detail.length() == 0 ? "" : ", ").append(LIBELLES_TYPES[i]).append(' ').append(valeur);
+            }
+        }
+        return detail.toString();
+    }
+
+    /**
+     * Type d'une ligne : celui de l'employé créé, ou la première lettre d'une ligne rejetée
+     */
+    private static int indexType(LigneEmploye ligne) {
+        if (ligne.getEmploye() instanceof Manager) {
+            return 0;
+        }
+        if (ligne.getEmploye() instanceof Technicien) {
+            return 1;
+        }
+        if (ligne.getEmploye() instanceof Commercial) {
+            return 2;
+        }
+        String texte = ligne.getLigne();
+        int index = texte.isEmpty() ? -1 : TYPES.indexOf(texte.charAt(0));
+        return index < 0 ? TYPES.length() : index;
+    }
+
+    private static LongAdder[] compteurs(int nombre) {
+        LongAdder[] compteurs = new LongAdder[nombre];
+        for (int i = 0; i < nombre; i++) {
+            compteurs[i] = new LongAdder();
+        }
+        return compteurs;
+    }
+}
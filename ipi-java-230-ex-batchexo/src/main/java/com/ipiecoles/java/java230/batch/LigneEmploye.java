@@ -0,0 +1,107 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+import com.ipiecoles.java.java230.model.Employe;
+
+/**
+ * Résultat de l'analyse d'une ligne du fichier CSV : l'employé créé, le code et le message d'erreur,
+ * ou rien pour une ligne de commentaire, accompagné du numéro et du contenu de la ligne pour le rapport d'erreurs.
+ */
+public final class LigneEmploye {
+
+    private final long numero;
+
+    private final CharSequence ligne;
+
+    private final Employe employe;
+
+    private final String matriculeManager;
+
+    private final CodeErreur code;
+
+    private final String erreur;
+
+    private LigneEmploye(long numero, CharSequence ligne, Employe employe, String matriculeManager, CodeErreur code, String erreur) {
+        this.numero = numero;
+        this.ligne = ligne;
+        this.employe = employe;
+        this.matriculeManager = matriculeManager;
+        this.code = code;
+        this.erreur = erreur;
+    }
+
+    /**
+     * @param numero le numéro de la ligne dans le fichier (à partir de 1)
+     * @param ligne le contenu de la ligne, éventuellement décodé à la demande
+     * @param employe l'employé créé à partir de la ligne
+     * @param matriculeManager le matricule du manager pour un technicien, null sinon
+     * @return une ligne valide
+     */
+    public static LigneEmploye valide(long numero, CharSequence ligne, Employe employe, String matriculeManager) {
+        return new LigneEmploye(numero, ligne, employe, matriculeManager, null, null);
+    }
+
+    /**
+     * @param numero le numéro de la ligne dans le fichier (à partir de 1)
+     * @param ligne le contenu de la ligne
+     * @param code le code de la première erreur rencontrée sur la ligne
+     * @param erreur le message de cette erreur
+     * @return une ligne rejetée
+     */
+    public static LigneEmploye rejetee(long numero, CharSequence ligne, CodeErreur code, String erreur) {
+        return new LigneEmploye(numero, ligne, null, null, code, erreur);
+    }
+
+    /**
+     * @param numero le numéro de la ligne dans le fichier (à partir de 1)
+     * @param ligne le contenu de la ligne
+     * @return une ligne de commentaire, qui n'est ni importée ni rejetée
+     */
+    public static LigneEmploye ignoree(long numero, CharSequence ligne) {
+        return new LigneEmploye(numero, ligne, null, null, null, null);
+    }
+
+    /**
+     * Copie le contenu de la ligne, pour une ligne conservée au-delà du traitement de son bloc : le contenu d'une ligne
+     * projetée référence le segment du fichier, qui resterait projeté tant que la ligne est en mémoire
+     * @return une ligne dont le contenu ne dépend plus du fichier
+     */
+    public LigneEmploye detacher() {
+        if (ligne instanceof String) {
+            return this;
+        }
+        return new LigneEmploye(numero, ligne.toString(), employe, matriculeManager, code, erreur);
+    }
+
+    public boolean isRejetee() {
+        return erreur != null;
+    }
+
+    public boolean isIgnoree() {
+        return employe == null && erreur == null;
+    }
+
+    public long getNumero() {
+        return numero;
+    }
+
+    public String getLigne() {
+        return ligne.toString();
+    }
+
+    public Employe getEmploye() {
+        return employe;
+    }
+
+    public String getMatriculeManager() {
+        return matriculeManager;
+    }
+
+    public CodeErreur getCode() {
+        return code;
+    }
+
+    public String getErreur() {
+        return erreur;
+    }
+}
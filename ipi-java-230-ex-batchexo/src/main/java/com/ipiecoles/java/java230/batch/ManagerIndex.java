@@ -0,0 +1,67 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index des managers connus lors d'un import, construit une fois par import : matricule => id.
+ * Il contient les managers déjà présents en BDD et ceux lus dans le fichier, ce qui permet de rattacher
+ * les techniciens à leur manager sans aucune requête par ligne.
+ */
+public class ManagerIndex {
+
+    // Un manager lu dans le fichier mais pas encore enregistré est présent avec un id null //
+    private final Map<String, Long> ids = new HashMap<>();
+
+    /**
+     * Construit l'index à partir des managers présents en BDD
+     * @param managerRepository le repository des managers
+     * @return l'index des managers existants
+     */
+    public static ManagerIndex charger(ManagerRepository managerRepository) {
+        ManagerIndex index = new ManagerIndex();
+        for (Object[] manager : managerRepository.findAllMatriculeAndId()) {
+            index.ids.put((String) manager[0], (Long) manager[1]);
+        }
+        return index;
+    }
+
+    /**
+     * Déclare un manager lu dans le fichier, avant son enregistrement
+     * @param matricule le matricule du manager
+     */
+    public void declarer(String matricule) {
+        ids.putIfAbsent(matricule, null);
+    }
+
+    /**
+     * Renseigne l'id d'un manager une fois celui-ci enregistré
+     * @param matricule le matricule du manager
+     * @param id l'id attribué au manager
+     */
+    public void enregistrer(String matricule, Long id) {
+        ids.put(matricule, id);
+    }
+
+    /**
+     * @param matricule le matricule du manager
+     * @return true si le manager est en BDD ou a déjà été lu dans le fichier
+     */
+    public boolean contient(String matricule) {
+        return ids.containsKey(matricule);
+    }
+
+    /**
+     * @param matricule le matricule du manager
+     * @return l'id du manager, null s'il n'a pas encore été enregistré
+     */
+    public Long getId(String matricule) {
+        return ids.get(matricule);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
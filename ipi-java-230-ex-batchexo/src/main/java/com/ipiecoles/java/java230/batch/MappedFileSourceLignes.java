@@ -0,0 +1,257 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source de lignes qui projette le fichier en mémoire (memory-mapping) par segments, sans limite de taille.
+ * Le thread appelant ne fait que repérer les fins de ligne dans le segment ; les threads d'analyse décodent
+ * ensuite les lignes de leur bloc directement depuis la projection partagée, sans copie intermédiaire.
+ * Les lignes ASCII sont converties octet par octet, les autres décodées en UTF-8. Le texte complet d'une ligne
+ * n'est créé que s'il est demandé, pour un message d'erreur.
+ */
+public class MappedFileSourceLignes implements SourceLignes {
+
+    private static final int TAILLE_SEGMENT = 256 * 1024 * 1024;
+
+    private static final byte FIN_DE_LIGNE = '\n';
+
+    private final FileChannel channel;
+
+    private final long tailleFichier;
+
+    private final int tailleSegment;
+
+    private MappedByteBuffer segment;
+
+    private long debutSegment;
+
+    private int position;
+
+    private long numeroLigne;
+
+    public MappedFileSourceLignes(Path fichier) throws IOException {
+        this(fichier, TAILLE_SEGMENT);
+    }
+
+    /**
+     * @param fichier le fichier à lire
+     * @param tailleSegment la taille maximale projetée en une fois, qui doit dépasser la taille d'une ligne
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    MappedFileSourceLignes(Path fichier, int tailleSegment) throws IOException {
+        this.channel = FileChannel.open(fichier, StandardOpenOption.READ);
+        this.tailleFichier = channel.size();
+        this.tailleSegment = tailleSegment;
+    }
+
+    @Override
+    public BlocLignes prochainBloc(int tailleBloc) throws IOException {
+        if (tailleFichier == 0) {
+            return null;
+        }
+        if (segment == null) {
+            projeter(0);
+            sauterBom();
+        }
+        int debut = position;
+        int nbLignes = 0;
+        while (nbLignes < tailleBloc && position < segment.limit()) {
+            int fin = chercherFinDeLigne(segment, position, segment.limit());
+            if (fin < 0) {
+                // La dernière ligne du fichier peut ne pas se terminer par un retour à la ligne //
+                // Ailleurs, la ligne se poursuit dans le segment suivant                         //
+                if (!dernierSegment()) {
+                    break;
+                }
+                fin = segment.limit();
+            }
+            position = fin + 1;
+            nbLignes++;
+        }
+        position = Math.min(position, segment.limit());
+
+        if (nbLignes == 0) {
+            if (dernierSegment()) {
+                return null;
+            }
+            if (position == 0) {
+                throw new IOException("Ligne " + (numeroLigne + 1) + " plus longue que " + tailleSegment + " octets");
+            }
+            // Projette le segment suivant à partir du début de la ligne incomplète //
+            projeter(debutSegment + position);
+            return prochainBloc(tailleBloc);
+        }
+        MappedBloc bloc = new MappedBloc(segment, debut, position, numeroLigne + 1, nbLignes);
+        numeroLigne += nbLignes;
+        return bloc;
+    }
+
+    private void projeter(long debut) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, debut, Math.min(tailleSegment, tailleFichier - debut));
+        debutSegment = debut;
+        position = 0;
+    }
+
+    private void sauterBom() {
+        if (segment.limit() >= 3 && segment.get(0) == (byte) 0xEF && segment.get(1) == (byte) 0xBB && segment.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+    }
+
+    private boolean dernierSegment() {
+        return debutSegment + segment.limit() >= tailleFichier;
+    }
+
+    private static int chercherFinDeLigne(ByteBuffer buffer, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            if (buffer.get(i) == FIN_DE_LIGNE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Bloc de lignes situé entre deux positions d'un segment projeté. Les lectures se font par position absolue :
+     * plusieurs threads peuvent lire le même segment.
+     */
+    private static final class MappedBloc implements BlocLignes {
+
+        private final ByteBuffer buffer;
+
+        private final int debut;
+
+        private final int fin;
+
+        private final long premiereLigne;
+
+        private final int nbLignes;
+
+        private MappedBloc(ByteBuffer buffer, int debut, int fin, long premiereLigne, int nbLignes) {
+            this.buffer = buffer;
+            this.debut = debut;
+            this.fin = fin;
+            this.premiereLigne = premiereLigne;
+            this.nbLignes = nbLignes;
+        }
+
+        @Override
+        public List<LigneEmploye> parse(EmployeLineParser parser) {
+            List<LigneEmploye> resultat = new ArrayList<>(nbLignes);
+            char[] caracteres = new char[256];
+            CharsetDecoder decoder = null;
+            int position = debut;
+            for (int i = 0; i < nbLignes; i++) {
+                int finLigne = chercherFinDeLigne(buffer, position, fin);
+                int suivante = finLigne < 0 ? fin : finLigne + 1;
+                finLigne = finLigne < 0 ? fin : finLigne;
+                if (finLigne > position && buffer.get(finLigne - 1) == '\r') {
+                    finLigne--;
+                }
+
+                int longueur = finLigne - position;
+                if (caracteres.length < longueur) {
+                    caracteres = new char[Math.max(longueur, caracteres.length * 2)];
+                }
+                int nbCaracteres = decoderAscii(position, longueur, caracteres);
+                if (nbCaracteres < 0) {
+                    if (decoder == null) {
+                        decoder = StandardCharsets.UTF_8.newDecoder()
+                                .onMalformedInput(CodingErrorAction.REPLACE)
+                                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                    }
+                    nbCaracteres = decoderUtf8(decoder, position, finLigne, caracteres);
+                }
+                resultat.add(parser.parse(premiereLigne + i, caracteres, nbCaracteres, new LigneMappee(buffer, position, finLigne)));
+                position = suivante;
+            }
+            return resultat;
+        }
+
+        private int decoderAscii(int position, int longueur, char[] caracteres) {
+            for (int j = 0; j < longueur; j++) {
+                byte octet = buffer.get(position + j);
+                if (octet < 0) {
+                    return -1;
+                }
+                caracteres[j] = (char) octet;
+            }
+            return longueur;
+        }
+
+        private int decoderUtf8(CharsetDecoder decoder, int position, int finLigne, char[] caracteres) {
+            ByteBuffer octets = buffer.duplicate();
+            ((Buffer) octets).limit(finLigne);
+            ((Buffer) octets).position(position);
+            CharBuffer sortie = CharBuffer.wrap(caracteres);
+            decoder.reset();
+            decoder.decode(octets, sortie, true);
+            decoder.flush(sortie);
+            return sortie.position();
+        }
+
+        @Override
+        public int size() {
+            return nbLignes;
+        }
+    }
+
+    /**
+     * Texte d'une ligne projetée, décodé seulement lorsqu'il est demandé
+     */
+    private static final class LigneMappee implements CharSequence {
+
+        private final ByteBuffer buffer;
+
+        private final int debut;
+
+        private final int fin;
+
+        private LigneMappee(ByteBuffer buffer, int debut, int fin) {
+            this.buffer = buffer;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        public int length() {
+            return toString().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] octets = new byte[fin - debut];
+            for (int i = 0; i < octets.length; i++) {
+                octets[i] = buffer.get(debut + i);
+            }
+            return new String(octets, StandardCharsets.UTF_8);
+        }
+    }
+}
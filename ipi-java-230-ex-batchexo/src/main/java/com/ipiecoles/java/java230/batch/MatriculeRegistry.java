@@ -0,0 +1,71 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.BitSet;
+
+/**
+ * Registre des matricules d'un import, pour détecter les doublons dans le fichier et avec la BDD.
+ * Les matricules sont repérés par leur code ({@link Matricules}) dans deux ensembles de 300000 bits :
+ * ceux présents en BDD au début de l'import et ceux déjà lus dans le fichier, soit environ 75 Ko
+ * quelle que soit la taille de la table, et une vérification sans allocation par ligne.
+ */
+public class MatriculeRegistry {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final BitSet enBase = new BitSet(Matricules.NB_CODES);
+
+    private final BitSet lus = new BitSet(Matricules.NB_CODES);
+
+    /**
+     * Construit le registre à partir des matricules présents en BDD, en une seule requête lue ligne à ligne
+     * @param jdbcTemplate l'accès à la BDD
+     * @return le registre des matricules existants
+     */
+    public static MatriculeRegistry charger(JdbcTemplate jdbcTemplate) {
+        MatriculeRegistry registre = new MatriculeRegistry();
+        JdbcTemplate lecture = new JdbcTemplate(jdbcTemplate.getDataSource());
+        lecture.setFetchSize(FETCH_SIZE);
+        lecture.query("select matricule from Employe", (ResultSet rs) -> {
+            int code = Matricules.coder(rs.getString(1));
+            if (code >= 0) {
+                registre.declarerEnBase(code);
+            }
+        });
+        return registre;
+    }
+
+    /**
+     * @param code le code du matricule
+     * @return true si un employé avec ce matricule était en BDD au début de l'import
+     */
+    public boolean isEnBase(int code) {
+        return enBase.get(code);
+    }
+
+    /**
+     * @param code le code d'un matricule présent en BDD
+     */
+    void declarerEnBase(int code) {
+        enBase.set(code);
+    }
+
+    /**
+     * Note le matricule d'une ligne du fichier
+     * @param code le code du matricule
+     * @return false si le matricule a déjà été lu plus haut dans le fichier
+     */
+    public boolean lire(int code) {
+        if (lus.get(code)) {
+            return false;
+        }
+        lus.set(code);
+        return true;
+    }
+
+    public int getNbEnBase() {
+        return enBase.cardinality();
+    }
+}
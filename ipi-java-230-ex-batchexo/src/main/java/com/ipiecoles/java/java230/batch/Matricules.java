@@ -0,0 +1,40 @@
+package com.ipiecoles.java.java230.batch;
+
+/**
+ * Codage des matricules ^[MTC][0-9]{5}$ en entiers denses : index du type * 100000 + numéro.
+ * Les 300000 matricules possibles tiennent ainsi dans des tableaux indexés par leur code.
+ * Même codage que {@link CsvLineTokenizer#codeMatricule(int, String)} avec les types "MTC".
+ */
+public final class Matricules {
+
+    public static final String TYPES = "MTC";
+
+    public static final int NB_NUMEROS = 100_000;
+
+    public static final int NB_CODES = TYPES.length() * NB_NUMEROS;
+
+    private Matricules() {
+    }
+
+    /**
+     * @param matricule le matricule à coder
+     * @return le code du matricule entre 0 et NB_CODES - 1, -1 s'il ne respecte pas ^[MTC][0-9]{5}$
+     */
+    public static int coder(CharSequence matricule) {
+        if (matricule == null || matricule.length() != 6) {
+            return -1;
+        }
+        int code = TYPES.indexOf(matricule.charAt(0));
+        if (code < 0) {
+            return -1;
+        }
+        for (int i = 1; i < 6; i++) {
+            char c = matricule.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            code = code * 10 + (c - '0');
+        }
+        return code;
+    }
+}
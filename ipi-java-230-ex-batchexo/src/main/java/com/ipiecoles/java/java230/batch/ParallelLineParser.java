@@ -0,0 +1,120 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Analyse parallèle du fichier CSV : le thread appelant lit la source par blocs de lignes, un pool de threads
+ * analyse les blocs et les lignes analysées sont rendues au thread appelant dans l'ordre du fichier.
+ * Le nombre de blocs en cours d'analyse est borné : la mémoire utilisée ne dépend pas de la taille du fichier.
+ */
+public class ParallelLineParser {
+
+    private final EmployeLineParser parser;
+
+    private final int nbThreads;
+
+    private final int tailleBloc;
+
+    private final ImportMetrics metrics;
+
+    /**
+     * @param parser l'analyseur de lignes, partagé par tous les threads
+     * @param nbThreads le nombre de threads d'analyse, 0 pour utiliser tous les processeurs
+     * @param tailleBloc le nombre de lignes analysées par tâche
+     */
+    public ParallelLineParser(EmployeLineParser parser, int nbThreads, int tailleBloc) {
+        this(parser, nbThreads, tailleBloc, new ImportMetrics());
+    }
+
+    /**
+     * @param parser l'analyseur de lignes, partagé par tous les threads
+     * @param nbThreads le nombre de threads d'analyse, 0 pour utiliser tous les processeurs
+     * @param tailleBloc le nombre de lignes analysées par tâche
+     * @param metrics les métriques de l'import, qui reçoivent les temps de lecture et d'analyse
+     */
+    public ParallelLineParser(EmployeLineParser parser, int nbThreads, int tailleBloc, ImportMetrics metrics) {
+        this.parser = parser;
+        this.nbThreads = nbThreads > 0 ? nbThreads : Runtime.getRuntime().availableProcessors();
+        this.tailleBloc = tailleBloc;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Lit et analyse toutes les lignes du fichier
+     * @param source le fichier à lire
+     * @param writer l'étape d'écriture, appelée depuis le thread appelant pour chaque ligne dans l'ordre du fichier
+     * @return le nombre de lignes lues
+     * @throws IOException en cas de problème de lecture du fichier
+     */
+    public long process(SourceLignes source, Consumer<LigneEmploye> writer) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, nouveauThreadFactory());
+        Deque<Future<List<LigneEmploye>>> blocsEnCours = new ArrayDeque<>();
+        long nbLignes = 0;
+        try {
+            BlocLignes bloc;
+            while ((bloc = lireBloc(source)) != null) {
+                BlocLignes aAnalyser = bloc;
+                blocsEnCours.add(executor.submit(() -> analyser(aAnalyser)));
+                nbLignes += bloc.size();
+
+                // Attend le plus ancien bloc avant de lire plus loin si trop de blocs sont en cours //
+                if (blocsEnCours.size() >= 2 * nbThreads) {
+                    transmettre(blocsEnCours.poll(), writer);
+                }
+            }
+            while (!blocsEnCours.isEmpty()) {
+                transmettre(blocsEnCours.poll(), writer);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return nbLignes;
+    }
+
+    private BlocLignes lireBloc(SourceLignes source) throws IOException {
+        long debut = System.nanoTime();
+        BlocLignes bloc = source.prochainBloc(tailleBloc);
+        metrics.ajouterTemps(ImportMetrics.Etape.LECTURE, System.nanoTime() - debut);
+        if (bloc != null) {
+            metrics.ajouterLignesLues(bloc.size());
+        }
+        return bloc;
+    }
+
+    private List<LigneEmploye> analyser(BlocLignes bloc) {
+        long debut = System.nanoTime();
+        List<LigneEmploye> lignes = bloc.parse(parser);
+        metrics.ajouterTemps(ImportMetrics.Etape.ANALYSE, System.nanoTime() - debut);
+        return lignes;
+    }
+
+    private void transmettre(Future<List<LigneEmploye>> bloc, Consumer<LigneEmploye> writer) {
+        try {
+            bloc.get().forEach(writer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analyse du fichier interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erreur inattendue lors de l'analyse du fichier", e.getCause());
+        }
+    }
+
+    private static ThreadFactory nouveauThreadFactory() {
+        AtomicInteger compteur = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "import-parser-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
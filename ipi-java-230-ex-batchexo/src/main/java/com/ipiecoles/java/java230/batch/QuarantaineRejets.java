@@ -0,0 +1,209 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fichier de quarantaine des lignes rejetées par l'import. Chaque ligne rejetée est écrite telle quelle,
+ * précédée d'un commentaire avec son numéro, le code et le message de l'erreur : une fois les lignes corrigées,
+ * le fichier peut être importé directement, les commentaires étant ignorés par {@link EmployeLineParser}.
+ * Les rejets sont écrits par un thread dédié via une file bornée : l'import n'attend l'écriture que si la file
+ * est pleine. Le fichier n'est créé qu'au premier rejet.
+ */
+public class QuarantaineRejets implements Closeable {
+
+    private static final String PREFIXE_REJET = "# Ligne ";
+
+    private static final Rejet FIN = new Rejet(0, null, null, null);
+
+    private final Path fichier;
+
+    private final BlockingQueue<Rejet> rejets;
+
+    private final Thread ecrivain;
+
+    // Écrit et lu par le seul thread d'écriture, jusqu'à sa fin //
+    private BufferedWriter writer;
+
+    private volatile IOException erreur;
+
+    private long nbRejets;
+
+    // Numéros des lignes dont le rejet a été conservé lors d'une reprise, à ne pas réécrire //
+    private final Set<Long> rejetsConserves = new HashSet<>();
+
+    /**
+     * @param fichier le fichier de quarantaine
+     * @param capacite le nombre de rejets en attente d'écriture au-delà duquel l'import attend
+     * @param derniereLigneConservee 0 pour un nouvel import, qui remplace un éventuel fichier précédent. Lors d'une
+     *                               reprise, la dernière ligne enregistrée avant l'interruption : les rejets des lignes
+     *                               jusqu'à celle-ci sont conservés, car celles que la reprise ignore ne sont pas
+     *                               rejetées à nouveau. Les rejets des lignes suivantes, relues, sont retirés
+     * @throws IOException en cas de problème sur le fichier précédent
+     */
+    public QuarantaineRejets(Path fichier, int capacite, long derniereLigneConservee) throws IOException {
+        this.fichier = fichier;
+        this.rejets = new ArrayBlockingQueue<>(capacite);
+        if (derniereLigneConservee == 0) {
+            Files.deleteIfExists(fichier);
+        } else if (Files.exists(fichier)) {
+            conserverRejetsAvant(derniereLigneConservee);
+        }
+        ecrivain = new Thread(this::ecrire, "import-quarantaine");
+        ecrivain.setDaemon(true);
+        ecrivain.start();
+    }
+
+    /**
+     * Met une ligne rejetée en attente d'écriture, sauf si son rejet a été conservé de l'import interrompu
+     * @param ligne la ligne rejetée
+     * @param code le code de l'erreur
+     * @param erreur le message de l'erreur
+     */
+    public void rejeter(LigneEmploye ligne, CodeErreur code, String erreur) {
+        nbRejets++;
+        if (rejetsConserves.contains(ligne.getNumero())) {
+            return;
+        }
+        try {
+            rejets.put(new Rejet(ligne.getNumero(), ligne.getLigne(), code, erreur));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Écriture du fichier de quarantaine interrompue", e);
+        }
+    }
+
+    /**
+     * @return le nombre de lignes rejetées par cet import
+     */
+    public long getNbRejets() {
+        return nbRejets;
+    }
+
+    public Path getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Attend l'écriture de tous les rejets en attente et ferme le fichier
+     * @throws IOException si l'écriture d'un rejet a échoué
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            rejets.put(FIN);
+            ecrivain.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Écriture du fichier de quarantaine interrompue", e);
+        }
+        if (erreur != null) {
+            throw erreur;
+        }
+    }
+
+    private void ecrire() {
+        try {
+            Rejet rejet;
+            while ((rejet = rejets.take()) != FIN) {
+                if (erreur == null) {
+                    try {
+                        ecrire(rejet);
+                    } catch (IOException e) {
+                        // Les rejets suivants sont ignorés pour ne pas bloquer l'import, l'erreur est remontée à la fermeture //
+                        erreur = e;
+                    }
+                }
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            erreur = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ecrire(Rejet rejet) throws IOException {
+        if (writer == null) {
+            boolean nouveau = !Files.exists(fichier);
+            writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (nouveau) {
+                writer.write("# Lignes rejetées par l'import : une fois corrigé, ce fichier peut être importé, "
+                        + "les lignes commençant par # sont ignorées");
+                writer.newLine();
+            }
+        }
+        writer.write(PREFIXE_REJET);
+        writer.write(Long.toString(rejet.numero));
+        writer.write(' ');
+        writer.write(rejet.code.name());
+        writer.write(" : ");
+        writer.write(rejet.erreur);
+        writer.newLine();
+        writer.write(rejet.ligne);
+        writer.newLine();
+    }
+
+    /**
+     * Retire du fichier d'un import interrompu les rejets des lignes relues par la reprise, et note les numéros
+     * des rejets conservés
+     */
+    private void conserverRejetsAvant(long derniereLigneConservee) throws IOException {
+        List<String> lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        List<String> conservees = new ArrayList<>(lignes.size());
+        for (String ligne : lignes) {
+            if (ligne.startsWith(PREFIXE_REJET)) {
+                long numero = numeroRejet(ligne);
+                if (numero > derniereLigneConservee) {
+                    break;
+                }
+                rejetsConserves.add(numero);
+            }
+            conservees.add(ligne);
+        }
+        Files.write(fichier, conservees, StandardCharsets.UTF_8);
+    }
+
+    private static long numeroRejet(String commentaire) {
+        int fin = commentaire.indexOf(' ', PREFIXE_REJET.length());
+        try {
+            return Long.parseLong(commentaire.substring(PREFIXE_REJET.length(), fin < 0 ? commentaire.length() : fin));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Rejet {
+
+        private final long numero;
+
+        private final String ligne;
+
+        private final CodeErreur code;
+
+        private final String erreur;
+
+        private Rejet(long numero, String ligne, CodeErreur code, String erreur) {
+            this.numero = numero;
+            this.ligne = ligne;
+            this.code = code;
+            this.erreur = erreur;
+        }
+    }
+}
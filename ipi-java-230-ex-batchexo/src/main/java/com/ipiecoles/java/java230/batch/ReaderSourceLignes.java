@@ -0,0 +1,55 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source de lignes lue à travers un Reader, utilisée pour les ressources du classpath et les flux
+ */
+public class ReaderSourceLignes implements SourceLignes {
+
+    private final BufferedReader reader;
+
+    private long numeroLigne;
+
+    public ReaderSourceLignes(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public BlocLignes prochainBloc(int tailleBloc) throws IOException {
+        List<String> lignes = new ArrayList<>(tailleBloc);
+        String ligne;
+        while (lignes.size() < tailleBloc && (ligne = reader.readLine()) != null) {
+            // Le BOM éventuel du fichier précède la première ligne //
+            lignes.add(numeroLigne == 0 && lignes.isEmpty() && ligne.startsWith("\uFEFF") ? ligne.substring(1) : ligne);
+        }
+        if (lignes.isEmpty()) {
+            return null;
+        }
+        long premiereLigne = numeroLigne + 1;
+        numeroLigne += lignes.size();
+        return new BlocLignes() {
+            @Override
+            public List<LigneEmploye> parse(EmployeLineParser parser) {
+                List<LigneEmploye> resultat = new ArrayList<>(lignes.size());
+                for (int i = 0; i < lignes.size(); i++) {
+                    resultat.add(parser.parse(premiereLigne + i, lignes.get(i)));
+                }
+                return resultat;
+            }
+
+            @Override
+            public int size() {
+                return lignes.size();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,49 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Fichier à importer, lu bloc par bloc par le thread appelant. Les numéros de ligne sont attribués par la source.
+ */
+public interface SourceLignes extends Closeable {
+
+    /**
+     * Lit le bloc suivant
+     * @param tailleBloc le nombre maximum de lignes du bloc
+     * @return le bloc suivant, null à la fin du fichier
+     * @throws IOException en cas de problème de lecture du fichier
+     */
+    BlocLignes prochainBloc(int tailleBloc) throws IOException;
+
+    /**
+     * Ouvre un fichier du disque : projeté en mémoire s'il n'est pas compressé, décompressé au fil de la lecture
+     * s'il est au format gzip ou zip
+     * @param fichier le fichier à lire
+     * @return les lignes du fichier
+     * @throws IOException si le fichier ne peut pas être ouvert
+     */
+    static SourceLignes ouvrir(Path fichier) throws IOException {
+        if (!FluxDecompresse.estCompresse(fichier)) {
+            return new MappedFileSourceLignes(fichier);
+        }
+        return ouvrir(Files.newInputStream(fichier));
+    }
+
+    /**
+     * Ouvre un flux encodé en UTF-8, décompressé au fil de la lecture s'il est au format gzip ou zip
+     * @param flux le flux à lire, fermé avec la source
+     * @return les lignes du flux
+     * @throws IOException en cas de problème de lecture de l'en-tête du flux
+     */
+    static SourceLignes ouvrir(InputStream flux) throws IOException {
+        return new ReaderSourceLignes(new BufferedReader(
+                new InputStreamReader(FluxDecompresse.ouvrir(flux), StandardCharsets.UTF_8), 64 * 1024));
+    }
+}
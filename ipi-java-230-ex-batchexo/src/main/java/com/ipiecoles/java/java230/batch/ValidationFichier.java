@@ -0,0 +1,196 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Validation d'un fichier CSV sans l'importer : commande {@code validate <fichier>} de l'application, exécutée
+ * avant le démarrage de Spring, sans BDD ni JPA. Les lignes sont analysées en parallèle avec les mêmes règles que
+ * l'import, les matricules en double dans le fichier sont rejetés, puis le résumé des rejets par erreur est affiché.
+ * Sans BDD, les matricules déjà en base ne sont pas détectés, et les techniciens dont le manager n'est pas
+ * dans le fichier sont seulement comptés : ils ne seront acceptés par l'import que si leur manager est en base.
+ */
+public class ValidationFichier {
+
+    public static final String COMMANDE = "validate";
+
+    // Codes de sortie de la commande //
+    public static final int FICHIER_VALIDE = 0;
+    public static final int LIGNES_REJETEES = 1;
+    public static final int ERREUR_LECTURE = 2;
+
+    private final int nbThreads;
+
+    private final int tailleBloc;
+
+    private final int nbRejetsAffiches;
+
+    private final PrintStream sortie;
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    private final ImportMetrics metrics = new ImportMetrics();
+
+    private final MatriculeRegistry matricules = new MatriculeRegistry();
+
+    private final ManagerIndex managers = new ManagerIndex();
+
+    // Techniciens lus avant leur manager, vérifiés en fin de fichier //
+    private final List<LigneEmploye> techniciensEnAttente = new ArrayList<>();
+
+    private long nbManagersHorsFichier;
+
+    /**
+     * @param nbThreads le nombre de threads d'analyse, 0 pour utiliser tous les processeurs
+     * @param tailleBloc le nombre de lignes analysées par tâche
+     * @param nbRejetsAffiches le nombre de lignes rejetées affichées avant le résumé
+     * @param sortie la sortie des rejets et du résumé
+     */
+    public ValidationFichier(int nbThreads, int tailleBloc, int nbRejetsAffiches, PrintStream sortie) {
+        this.nbThreads = nbThreads;
+        this.tailleBloc = tailleBloc;
+        this.nbRejetsAffiches = nbRejetsAffiches;
+        this.sortie = sortie;
+    }
+
+    /**
+     * Point d'entrée de la commande {@code validate <fichier> [--batch.import.threads=N] [--batch.import.block-size=N]
+     * [--batch.import.log-rejects=N]}, le fichier - désignant l'entrée standard. Un fichier compressé (gzip ou zip)
+     * est décompressé au fil de la lecture
+     * @param args les arguments qui suivent la commande
+     * @return le code de sortie : {@link #FICHIER_VALIDE}, {@link #LIGNES_REJETEES} ou {@link #ERREUR_LECTURE}
+     */
+    public static int executer(String... args) {
+        Map<String, String> options = new HashMap<>();
+        String fichier = null;
+        for (String arg : args) {
+            int egal = arg.indexOf('=');
+            if (arg.startsWith("--") && egal > 0) {
+                options.put(arg.substring(2, egal), arg.substring(egal + 1));
+            } else if (fichier == null) {
+                fichier = arg;
+            }
+        }
+        if (fichier == null) {
+            return usage();
+        }
+        ValidationFichier validation;
+        try {
+            validation = new ValidationFichier(
+                    Integer.parseInt(options.getOrDefault("batch.import.threads", "0")),
+                    Integer.parseInt(options.getOrDefault("batch.import.block-size", "1000")),
+                    Integer.parseInt(options.getOrDefault("batch.import.log-rejects", "100")), System.out);
+        } catch (NumberFormatException e) {
+            System.err.println("Option invalide : " + e.getMessage());
+            return usage();
+        }
+        try (SourceLignes source = "-".equals(fichier) ? SourceLignes.ouvrir(System.in) : SourceLignes.ouvrir(Paths.get(fichier))) {
+            validation.valider(source);
+        } catch (IOException e) {
+            System.err.println("Problème dans la lecture du fichier " + fichier + " : " + e.getMessage());
+            return ERREUR_LECTURE;
+        }
+        System.out.println(validation.rapport());
+        return validation.getMetrics().getLignesRejetees() > 0 ? LIGNES_REJETEES : FICHIER_VALIDE;
+    }
+
+    /**
+     * Affiche la syntaxe de la commande
+     * @return le code de sortie {@link #ERREUR_LECTURE}, distinct de celui d'un fichier avec des lignes rejetées
+     */
+    private static int usage() {
+        System.err.println("Usage : " + COMMANDE + " <fichier> [--batch.import.threads=N] [--batch.import.block-size=N] "
+                + "[--batch.import.log-rejects=N]");
+        return ERREUR_LECTURE;
+    }
+
+    /**
+     * Analyse toutes les lignes de la source et affiche les premières lignes rejetées
+     * @param source les lignes du fichier
+     * @throws IOException en cas de problème de lecture du fichier
+     */
+    public void valider(SourceLignes source) throws IOException {
+        metrics.demarrer();
+        try {
+            new ParallelLineParser(parser, nbThreads, tailleBloc, metrics).process(source, this::verifier);
+            for (LigneEmploye ligne : techniciensEnAttente) {
+                if (!managers.contient(ligne.getMatriculeManager())) {
+                    nbManagersHorsFichier++;
+                }
+            }
+            techniciensEnAttente.clear();
+        } finally {
+            metrics.terminer();
+        }
+    }
+
+    private void verifier(LigneEmploye ligne) {
+        metrics.ligneAnalysee(ligne);
+        if (ligne.isIgnoree()) {
+            return;
+        }
+        if (ligne.isRejetee()) {
+            rejeter(ligne, ligne.getErreur());
+            return;
+        }
+        String matricule = ligne.getEmploye().getMatricule();
+        if (!matricules.lire(Matricules.coder(matricule))) {
+            metrics.ligneRejetee(ligne, CodeErreur.MATRICULE_EN_DOUBLE);
+            rejeter(ligne, "Le matricule " + matricule + " est présent plusieurs fois dans le fichier");
+            return;
+        }
+        if (ligne.getEmploye() instanceof Manager) {
+            managers.declarer(matricule);
+        } else if (ligne.getEmploye() instanceof Technicien && !managers.contient(ligne.getMatriculeManager())) {
+            techniciensEnAttente.add(ligne.detacher());
+        }
+    }
+
+    private void rejeter(LigneEmploye ligne, String erreur) {
+        if (metrics.getLignesRejetees() <= nbRejetsAffiches) {
+            sortie.println("Ligne " + ligne.getNumero() + " : " + erreur + " => " + ligne.getLigne());
+        }
+    }
+
+    /**
+     * @return le résumé de la validation, une information par ligne
+     */
+    public String rapport() {
+        long lignesRejetees = metrics.getLignesRejetees();
+        long lignesValides = metrics.getLignesLues() - lignesRejetees - metrics.getLignesIgnorees();
+        StringBuilder rapport = new StringBuilder("Validation du fichier :");
+        rapport.append(String.format(Locale.ROOT, "%n  %-22s: %.2f s", "Durée", metrics.getDureeMs() / 1000.0));
+        rapport.append(String.format(Locale.ROOT, "%n  %-22s: %d", "Lignes lues", metrics.getLignesLues()));
+        rapport.append(String.format(Locale.ROOT, "%n  %-22s: %d", "Lignes valides", lignesValides));
+        rapport.append(String.format(Locale.ROOT, "%n  %-22s: %d", "Lignes rejetées", lignesRejetees));
+        if (lignesRejetees > 0) {
+            rapport.append(String.format(Locale.ROOT, "%n  %-22s: %s", "Rejets par erreur", metrics.getRejetsParErreur()));
+        }
+        if (nbManagersHorsFichier > 0) {
+            rapport.append(String.format(Locale.ROOT, "%n  %-22s: %d techniciens dont le manager doit être en base",
+                    "Managers hors fichier", nbManagersHorsFichier));
+        }
+        return rapport.toString();
+    }
+
+    public ImportMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return le nombre de techniciens valides dont le manager n'est pas dans le fichier
+     */
+    public long getNbManagersHorsFichier() {
+        return nbManagersHorsFichier;
+    }
+}
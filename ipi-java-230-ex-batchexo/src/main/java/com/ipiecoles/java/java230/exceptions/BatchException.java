@@ -1,7 +1,19 @@
 package com.ipiecoles.java.java230.exceptions;
 
 public class BatchException extends Exception {
+
+    private final CodeErreur code;
+
     public BatchException(String message){
+        this(CodeErreur.AUTRE, message);
+    }
+
+    public BatchException(CodeErreur code, String message){
         super(message);
+        this.code = code;
+    }
+
+    public CodeErreur getCode() {
+        return code;
     }
 }
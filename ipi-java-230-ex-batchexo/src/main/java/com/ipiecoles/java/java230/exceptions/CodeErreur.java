@@ -0,0 +1,22 @@
+package com.ipiecoles.java.java230.exceptions;
+
+/**
+ * Code des erreurs de l'import, écrit dans le fichier de quarantaine et utilisé pour compter les rejets par erreur
+ */
+public enum CodeErreur {
+    LIGNE_VIDE,
+    TYPE_INCONNU,
+    NB_CHAMPS_INCORRECT,
+    MATRICULE_INVALIDE,
+    DATE_INVALIDE,
+    SALAIRE_INVALIDE,
+    CA_INVALIDE,
+    PERFORMANCE_INVALIDE,
+    GRADE_HORS_LIMITES,
+    GRADE_INVALIDE,
+    MATRICULE_MANAGER_INVALIDE,
+    MATRICULE_EN_DOUBLE,
+    MATRICULE_EXISTANT,
+    MANAGER_INTROUVABLE,
+    AUTRE
+}
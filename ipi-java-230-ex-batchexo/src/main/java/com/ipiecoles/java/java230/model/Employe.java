@@ -1,5 +1,9 @@
 package com.ipiecoles.java.java230.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.Type;
 import org.joda.time.LocalDate;
 
@@ -8,16 +12,35 @@ import java.util.Objects;
 
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+		@Index(name = "idx_employe_nomrecherche", columnList = "nomRecherche"),
+		@Index(name = "idx_employe_prenomrecherche", columnList = "prenomRecherche"),
+		@Index(name = "idx_employe_salaire", columnList = "salaire"),
+		@Index(name = "idx_employe_nom_id", columnList = "nom, id")
+})
 public abstract class Employe {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "employe_id")
+	@GenericGenerator(name = "employe_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+			@Parameter(name = "table_name", value = "hibernate_sequences"),
+			@Parameter(name = "segment_value", value = "Employe"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled")
+	})
 	private Long id;
 
 	private String nom;
 	
 	private String prenom;
 
+	// Nom et prénom normalisés par NomRecherche, mis à jour à chaque écriture de l'employé //
+	private String nomRecherche;
+
+	private String prenomRecherche;
+
 	private String matricule;
 
 	@Type(type = "org.jadira.usertype.dateandtime.joda.PersistentLocalDate")
@@ -133,6 +156,21 @@ public abstract class Employe {
 		this.salaire = salaire;
 	}
 
+	@PrePersist
+	@PreUpdate
+	void normaliserNomsRecherche() {
+		this.nomRecherche = NomRecherche.normaliser(nom);
+		this.prenomRecherche = NomRecherche.normaliser(prenom);
+	}
+
+	public String getNomRecherche() {
+		return nomRecherche;
+	}
+
+	public String getPrenomRecherche() {
+		return prenomRecherche;
+	}
+
 	@Override
 	public String toString() {
 		final StringBuilder sb = new StringBuilder("Employe{");
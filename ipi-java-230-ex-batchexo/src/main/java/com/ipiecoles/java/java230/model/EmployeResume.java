@@ -0,0 +1,71 @@
+package com.ipiecoles.java.java230.model;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Colonnes de la table Employe, communes à tous les types d'employés, lues par les requêtes en projection
+ * de BaseEmployeRepository. Ces requêtes ne lisent que la table Employe : contrairement au chargement des entités,
+ * elles ne font pas de jointure externe sur les tables Manager, Technicien et Commercial
+ * et ne créent pas d'entité dans le contexte de persistance.
+ * Une classe construite par la requête ({@code select new}) plutôt qu'une interface de projection Spring Data,
+ * qui crée un proxy par ligne et coûte plus cher que l'entité elle-même.
+ */
+public class EmployeResume {
+
+	private final Long id;
+
+	private final String nom;
+
+	private final String prenom;
+
+	private final String matricule;
+
+	private final LocalDate dateEmbauche;
+
+	private final Double salaire;
+
+	public EmployeResume(Long id, String nom, String prenom, String matricule, LocalDate dateEmbauche, Double salaire) {
+		this.id = id;
+		this.nom = nom;
+		this.prenom = prenom;
+		this.matricule = matricule;
+		this.dateEmbauche = dateEmbauche;
+		this.salaire = salaire;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getNom() {
+		return nom;
+	}
+
+	public String getPrenom() {
+		return prenom;
+	}
+
+	public String getMatricule() {
+		return matricule;
+	}
+
+	public LocalDate getDateEmbauche() {
+		return dateEmbauche;
+	}
+
+	public Double getSalaire() {
+		return salaire;
+	}
+
+	@Override
+	public String toString() {
+		return "EmployeResume{" +
+				"id=" + id +
+				", nom='" + nom + '\'' +
+				", prenom='" + prenom + '\'' +
+				", matricule='" + matricule + '\'' +
+				", dateEmbauche=" + dateEmbauche +
+				", salaire=" + salaire +
+				'}';
+	}
+}
@@ -0,0 +1,149 @@
+package com.ipiecoles.java.java230.model;
+
+import org.hibernate.annotations.Type;
+import org.joda.time.LocalDateTime;
+
+import javax.persistence.*;
+
+/**
+ * Suivi d'un import du fichier CSV. Le point de reprise est mis à jour dans la même transaction que chaque paquet
+ * d'employés enregistré : après un arrêt brutal, l'import du même fichier reprend à partir de ce point.
+ */
+@Entity
+public class ImportJob {
+
+	public enum Statut {
+		EN_COURS,
+		TERMINE
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	// Le fichier est identifié par son nom, sa taille et sa date de modification //
+	private String fichier;
+
+	private Long tailleFichier;
+
+	private Long dateModification;
+
+	@Enumerated(EnumType.STRING)
+	private Statut statut = Statut.EN_COURS;
+
+	// Toutes les lignes jusqu'à celle-ci sont traitées : elles ne sont plus lues lors d'une reprise //
+	private Long ligneReprise = 0L;
+
+	// Ligne la plus loin dans le fichier dont l'employé est enregistré //
+	private Long derniereLigneEcrite = 0L;
+
+	private Long nbEmployes = 0L;
+
+	@Type(type = "org.jadira.usertype.dateandtime.joda.PersistentLocalDateTime")
+	private LocalDateTime dateDebut;
+
+	@Type(type = "org.jadira.usertype.dateandtime.joda.PersistentLocalDateTime")
+	private LocalDateTime dateFin;
+
+	public ImportJob() {
+
+	}
+
+	public ImportJob(String fichier, Long tailleFichier, Long dateModification) {
+		this.fichier = fichier;
+		this.tailleFichier = tailleFichier;
+		this.dateModification = dateModification;
+		this.dateDebut = LocalDateTime.now();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getFichier() {
+		return fichier;
+	}
+
+	public void setFichier(String fichier) {
+		this.fichier = fichier;
+	}
+
+	public Long getTailleFichier() {
+		return tailleFichier;
+	}
+
+	public void setTailleFichier(Long tailleFichier) {
+		this.tailleFichier = tailleFichier;
+	}
+
+	public Long getDateModification() {
+		return dateModification;
+	}
+
+	public void setDateModification(Long dateModification) {
+		this.dateModification = dateModification;
+	}
+
+	public Statut getStatut() {
+		return statut;
+	}
+
+	public void setStatut(Statut statut) {
+		this.statut = statut;
+	}
+
+	public Long getLigneReprise() {
+		return ligneReprise;
+	}
+
+	public void setLigneReprise(Long ligneReprise) {
+		this.ligneReprise = ligneReprise;
+	}
+
+	public Long getDerniereLigneEcrite() {
+		return derniereLigneEcrite;
+	}
+
+	public void setDerniereLigneEcrite(Long derniereLigneEcrite) {
+		this.derniereLigneEcrite = derniereLigneEcrite;
+	}
+
+	public Long getNbEmployes() {
+		return nbEmployes;
+	}
+
+	public void setNbEmployes(Long nbEmployes) {
+		this.nbEmployes = nbEmployes;
+	}
+
+	public LocalDateTime getDateDebut() {
+		return dateDebut;
+	}
+
+	public void setDateDebut(LocalDateTime dateDebut) {
+		this.dateDebut = dateDebut;
+	}
+
+	public LocalDateTime getDateFin() {
+		return dateFin;
+	}
+
+	public void setDateFin(LocalDateTime dateFin) {
+		this.dateFin = dateFin;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportJob{" +
+				"id=" + id +
+				", fichier='" + fichier + '\'' +
+				", statut=" + statut +
+				", ligneReprise=" + ligneReprise +
+				", nbEmployes=" + nbEmployes +
+				'}';
+	}
+}
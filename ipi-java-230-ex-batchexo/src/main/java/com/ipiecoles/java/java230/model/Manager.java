@@ -1,6 +1,7 @@
 package com.ipiecoles.java.java230.model;
 
 import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.hibernate.annotations.BatchSize;
 import org.joda.time.LocalDate;
 
 import javax.persistence.Entity;
@@ -13,7 +14,9 @@ import java.util.stream.Collectors;
 @Entity
 public class Manager extends Employe {
 
+	// Les équipes des managers chargés dans la même session sont initialisées par lots de 50 //
 	@OneToMany(mappedBy = "manager")
+	@BatchSize(size = 50)
 	private Set<Technicien> equipe = new HashSet();
 
 	public Manager(){
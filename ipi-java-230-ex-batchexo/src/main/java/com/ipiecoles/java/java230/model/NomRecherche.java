@@ -0,0 +1,35 @@
+package com.ipiecoles.java.java230.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Forme normalisée des noms et prénoms pour la recherche : en minuscules et sans accents.
+ * Elle est enregistrée dans les colonnes nomRecherche et prenomRecherche des employés, qui peuvent ainsi être
+ * indexées et comparées par égalité, au lieu d'appliquer lower() à chaque ligne de la table.
+ */
+public final class NomRecherche {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private NomRecherche() {
+    }
+
+    /**
+     * @param nom un nom ou prénom, tel que saisi
+     * @return le nom en minuscules sans accents, null si le nom est null
+     */
+    public static String normaliser(String nom) {
+        if (nom == null) {
+            return null;
+        }
+        for (int i = 0; i < nom.length(); i++) {
+            // Les noms sans caractère accentué, les plus courants, évitent la décomposition Unicode //
+            if (nom.charAt(i) >= 0x80) {
+                return ACCENTS.matcher(Normalizer.normalize(nom, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+            }
+        }
+        return nom.toLowerCase(Locale.ROOT);
+    }
+}
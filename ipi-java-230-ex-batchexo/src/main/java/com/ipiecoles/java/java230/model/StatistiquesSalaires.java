@@ -0,0 +1,78 @@
+package com.ipiecoles.java.java230.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Statistiques des salaires d'un type d'employé, tenues à jour à chaque écriture d'employés
+ * au lieu d'être recalculées sur toute la table Employe à chaque lecture.
+ * Le minimum et le maximum ne peuvent pas être déduits d'une suppression ou d'une augmentation :
+ * ils sont alors marqués périmés et recalculés à la lecture suivante.
+ */
+@Entity
+public class StatistiquesSalaires {
+
+	// Manager, Technicien ou Commercial : le nom de la table du type //
+	@Id
+	private String typeEmploye;
+
+	private Long nbEmployes = 0L;
+
+	private Double sommeSalaires = 0d;
+
+	private Double salaireMin;
+
+	private Double salaireMax;
+
+	private Boolean minMaxAJour = true;
+
+	public StatistiquesSalaires() {
+
+	}
+
+	public static String typeDe(Employe employe) {
+		if (employe instanceof Manager) {
+			return "Manager";
+		}
+		return employe instanceof Technicien ? "Technicien" : "Commercial";
+	}
+
+	public String getTypeEmploye() {
+		return typeEmploye;
+	}
+
+	public Long getNbEmployes() {
+		return nbEmployes;
+	}
+
+	public Double getSommeSalaires() {
+		return sommeSalaires;
+	}
+
+	public Double getSalaireMoyen() {
+		return nbEmployes == 0 ? null : sommeSalaires / nbEmployes;
+	}
+
+	public Double getSalaireMin() {
+		return salaireMin;
+	}
+
+	public Double getSalaireMax() {
+		return salaireMax;
+	}
+
+	public Boolean getMinMaxAJour() {
+		return minMaxAJour;
+	}
+
+	@Override
+	public String toString() {
+		return "StatistiquesSalaires{" +
+				"typeEmploye='" + typeEmploye + '\'' +
+				", nbEmployes=" + nbEmployes +
+				", sommeSalaires=" + sommeSalaires +
+				", salaireMin=" + salaireMin +
+				", salaireMax=" + salaireMax +
+				'}';
+	}
+}
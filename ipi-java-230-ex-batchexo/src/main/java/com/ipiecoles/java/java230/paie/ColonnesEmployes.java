@@ -0,0 +1,93 @@
+package com.ipiecoles.java.java230.paie;
+
+import java.util.Arrays;
+
+/**
+ * Employés rangés par colonnes de types primitifs pour le calcul de la paie : la ligne i de chaque tableau
+ * décrit le même employé. Seules les données utiles aux calculs sont conservées, sans entité ni valeur boxée.
+ */
+public class ColonnesEmployes {
+
+    public static final byte MANAGER = 0;
+    public static final byte TECHNICIEN = 1;
+    public static final byte COMMERCIAL = 2;
+
+    // Année d'embauche d'un employé sans date d'embauche : son ancienneté est nulle //
+    public static final int ANNEE_INCONNUE = Integer.MIN_VALUE;
+
+    private int taille;
+
+    long[] ids;
+
+    byte[] types;
+
+    double[] salaires;
+
+    int[] anneesEmbauche;
+
+    int[] grades;
+
+    double[] casAnnuels;
+
+    int[] taillesEquipe;
+
+    public ColonnesEmployes(int capacite) {
+        ids = new long[capacite];
+        types = new byte[capacite];
+        salaires = new double[capacite];
+        anneesEmbauche = new int[capacite];
+        grades = new int[capacite];
+        casAnnuels = new double[capacite];
+        taillesEquipe = new int[capacite];
+    }
+
+    /**
+     * Ajoute un employé en fin de colonnes, qui sont agrandies si besoin
+     * @param id l'id de l'employé
+     * @param type {@link #MANAGER}, {@link #TECHNICIEN} ou {@link #COMMERCIAL}
+     * @param salaire le salaire enregistré
+     * @param anneeEmbauche l'année d'embauche ou {@link #ANNEE_INCONNUE}
+     * @param grade le grade d'un technicien, 0 sinon
+     * @param caAnnuel le chiffre d'affaires d'un commercial, 0 sinon
+     * @param tailleEquipe la taille de l'équipe d'un manager, 0 sinon
+     */
+    public void ajouter(long id, byte type, double salaire, int anneeEmbauche, int grade, double caAnnuel, int tailleEquipe) {
+        if (taille == ids.length) {
+            agrandir(Math.max(16, taille * 2));
+        }
+        ids[taille] = id;
+        types[taille] = type;
+        salaires[taille] = salaire;
+        anneesEmbauche[taille] = anneeEmbauche;
+        grades[taille] = grade;
+        casAnnuels[taille] = caAnnuel;
+        taillesEquipe[taille] = tailleEquipe;
+        taille++;
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    public long getId(int i) {
+        return ids[i];
+    }
+
+    public byte getType(int i) {
+        return types[i];
+    }
+
+    public double getSalaire(int i) {
+        return salaires[i];
+    }
+
+    private void agrandir(int capacite) {
+        ids = Arrays.copyOf(ids, capacite);
+        types = Arrays.copyOf(types, capacite);
+        salaires = Arrays.copyOf(salaires, capacite);
+        anneesEmbauche = Arrays.copyOf(anneesEmbauche, capacite);
+        grades = Arrays.copyOf(grades, capacite);
+        casAnnuels = Arrays.copyOf(casAnnuels, capacite);
+        taillesEquipe = Arrays.copyOf(taillesEquipe, capacite);
+    }
+}
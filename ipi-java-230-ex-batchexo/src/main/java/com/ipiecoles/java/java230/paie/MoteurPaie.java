@@ -0,0 +1,50 @@
+package com.ipiecoles.java.java230.paie;
+
+import com.ipiecoles.java.java230.model.Entreprise;
+import org.joda.time.LocalDate;
+
+import java.util.stream.IntStream;
+
+/**
+ * Calcul de la paie de tous les employés en une passe sur leurs colonnes ({@link ColonnesEmployes}).
+ * Les formules sont celles des entités ({@code getPrimeAnnuelle()}, {@code getNbConges()},
+ * {@code getNombreAnneeAnciennete()}), avec les mêmes opérations dans le même ordre pour des résultats identiques,
+ * mais l'année de référence est lue une seule fois au lieu d'un {@code LocalDate.now()} par employé et par calcul.
+ */
+public final class MoteurPaie {
+
+    private MoteurPaie() {
+    }
+
+    /**
+     * @param colonnes les employés
+     * @param dateReference la date à laquelle la paie est calculée
+     * @return la prime annuelle et les congés de chaque employé, avec les totaux par type
+     */
+    public static RapportPaie calculer(ColonnesEmployes colonnes, LocalDate dateReference) {
+        int annee = dateReference.getYear();
+        double primeBase = annee * 0.5;
+        int taille = colonnes.size();
+        double[] primes = new double[taille];
+        int[] conges = new int[taille];
+
+        // Chaque employé ne dépend que de sa ligne : les lignes sont réparties entre les threads sans synchronisation //
+        IntStream.range(0, taille).parallel().forEach(i -> {
+            int anciennete = colonnes.anneesEmbauche[i] == ColonnesEmployes.ANNEE_INCONNUE ? 0 : annee - colonnes.anneesEmbauche[i];
+            switch (colonnes.types[i]) {
+                case ColonnesEmployes.MANAGER:
+                    primes[i] = primeBase + colonnes.taillesEquipe[i] * Entreprise.PRIME_MANAGER_PAR_TECHNICIEN;
+                    conges[i] = Entreprise.NB_CONGES_BASE;
+                    break;
+                case ColonnesEmployes.TECHNICIEN:
+                    primes[i] = primeBase + primeBase * (1 + (double) colonnes.grades[i] / 10) + Entreprise.PRIME_ANCIENNETE * anciennete;
+                    conges[i] = Entreprise.NB_CONGES_BASE + anciennete;
+                    break;
+                default:
+                    primes[i] = Math.max(Math.ceil(colonnes.casAnnuels[i] * 0.05), 500);
+                    conges[i] = Entreprise.NB_CONGES_BASE;
+            }
+        });
+        return new RapportPaie(dateReference, colonnes, primes, conges);
+    }
+}
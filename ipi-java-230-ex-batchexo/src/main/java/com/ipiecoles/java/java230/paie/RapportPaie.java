@@ -0,0 +1,92 @@
+package com.ipiecoles.java.java230.paie;
+
+import org.joda.time.LocalDate;
+
+import java.util.Locale;
+
+/**
+ * Résultat d'un calcul de paie : prime annuelle et jours de congés de chaque employé, et totaux par type d'employé.
+ * Les totaux sont sommés dans l'ordre des employés, pour qu'ils ne dépendent pas du découpage entre threads.
+ */
+public class RapportPaie {
+
+    private static final String[] LIBELLES_TYPES = {"Managers", "Techniciens", "Commerciaux"};
+
+    private final LocalDate dateReference;
+
+    private final ColonnesEmployes colonnes;
+
+    private final double[] primes;
+
+    private final int[] conges;
+
+    private final int[] nbEmployes = new int[LIBELLES_TYPES.length];
+
+    private final double[] massesSalariales = new double[LIBELLES_TYPES.length];
+
+    private final double[] totauxPrimes = new double[LIBELLES_TYPES.length];
+
+    private final long[] totauxConges = new long[LIBELLES_TYPES.length];
+
+    RapportPaie(LocalDate dateReference, ColonnesEmployes colonnes, double[] primes, int[] conges) {
+        this.dateReference = dateReference;
+        this.colonnes = colonnes;
+        this.primes = primes;
+        this.conges = conges;
+        for (int i = 0; i < colonnes.size(); i++) {
+            int type = colonnes.types[i];
+            nbEmployes[type]++;
+            massesSalariales[type] += colonnes.salaires[i];
+            totauxPrimes[type] += primes[i];
+            totauxConges[type] += conges[i];
+        }
+    }
+
+    public LocalDate getDateReference() {
+        return dateReference;
+    }
+
+    public int size() {
+        return colonnes.size();
+    }
+
+    public long getId(int i) {
+        return colonnes.getId(i);
+    }
+
+    public double getPrimeAnnuelle(int i) {
+        return primes[i];
+    }
+
+    public int getNbConges(int i) {
+        return conges[i];
+    }
+
+    /**
+     * @param type {@link ColonnesEmployes#MANAGER}, {@link ColonnesEmployes#TECHNICIEN} ou {@link ColonnesEmployes#COMMERCIAL}
+     * @return le total des primes annuelles des employés de ce type
+     */
+    public double getTotalPrimes(byte type) {
+        return totauxPrimes[type];
+    }
+
+    public double getTotalPrimes() {
+        return totauxPrimes[0] + totauxPrimes[1] + totauxPrimes[2];
+    }
+
+    public double getMasseSalariale() {
+        return massesSalariales[0] + massesSalariales[1] + massesSalariales[2];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder rapport = new StringBuilder("Paie au ").append(dateReference).append(" :");
+        for (int type = 0; type < LIBELLES_TYPES.length; type++) {
+            rapport.append(String.format(Locale.ROOT, "%n  %-12s: %d employés, masse salariale %.2f, primes %.2f, %d jours de congés",
+                    LIBELLES_TYPES[type], nbEmployes[type], massesSalariales[type], totauxPrimes[type], totauxConges[type]));
+        }
+        rapport.append(String.format(Locale.ROOT, "%n  %-12s: masse salariale %.2f, primes %.2f",
+                "Total", getMasseSalariale(), getTotalPrimes()));
+        return rapport.toString();
+    }
+}
@@ -1,33 +1,167 @@
 package com.ipiecoles.java.java230.repository;
 
 import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.EmployeResume;
+import com.ipiecoles.java.java230.model.NomRecherche;
 import org.joda.time.LocalDate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BaseEmployeRepository<T extends Employe> extends PagingAndSortingRepository<T, Long> {
+    // Nombre de lignes lues par aller-retour avec la BDD par les lectures en flux //
+    String FETCH_SIZE = "1000";
+
+    String SELECT_RESUME = "select new com.ipiecoles.java.java230.model.EmployeResume(e.id, e.nom, e.prenom, e.matricule, "
+            + "e.dateEmbauche, e.salaire) from #{#entityName} e";
+
+    // Résultat conservé dans le cache des requêtes, et l'employé dans le cache de second niveau (voir CacheEmployes) //
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     T findByMatricule(String matricule);
 
     List<T> findByNomAndPrenom(String nom, String prenom);
 
+    /**
+     * @deprecated lower() appliqué aux colonnes empêche l'usage d'un index : chaque recherche parcourt toute la table.
+     * Utiliser {@link #rechercherParNomOuPrenom(String)}.
+     */
+    @Deprecated
     @Query("select e from #{#entityName} e where lower(e.prenom) = lower(:nomOuPrenom) or lower(e.nom) = lower(:nomOuPrenom)")
     List<T> findByNomOrPrenomAllIgnoreCase(@Param("nomOuPrenom") String nomOuPrenom);
 
+    /**
+     * @deprecated parcourt toute la table, utiliser {@link #rechercherParNom(String)}
+     */
+    @Deprecated
     List<T> findByNomIgnoreCase(String nom);
 
+    /**
+     * @deprecated parcourt toute la table, utiliser {@link #rechercherParNom(String, Pageable)}
+     */
+    @Deprecated
     Page<T> findByNomIgnoreCase(String nom, Pageable pageable);
 
+    // Recherches sur les colonnes normalisées et indexées (voir NomRecherche), sans distinction de casse ni d'accents //
+
+    List<T> findByNomRechercheOrPrenomRecherche(String nomRecherche, String prenomRecherche);
+
+    List<T> findByNomRecherche(String nomRecherche);
+
+    Page<T> findByNomRecherche(String nomRecherche, Pageable pageable);
+
+    default List<T> rechercherParNomOuPrenom(String nomOuPrenom) {
+        String recherche = NomRecherche.normaliser(nomOuPrenom);
+        return findByNomRechercheOrPrenomRecherche(recherche, recherche);
+    }
+
+    default List<T> rechercherParNom(String nom) {
+        return findByNomRecherche(NomRecherche.normaliser(nom));
+    }
+
+    default Page<T> rechercherParNom(String nom, Pageable pageable) {
+        return findByNomRecherche(NomRecherche.normaliser(nom), pageable);
+    }
+
     List<T> findByDateEmbaucheBefore(LocalDate date);
 
     List<T> findByDateEmbaucheAfter(LocalDate date);
 
     List<T> findBySalaireGreaterThanOrderBySalaireDesc(Double salaire);
 
+    /**
+     * Recalcule la moyenne sur toute la table à chaque appel : préférer EmployeService.findEmployePlusRiches(),
+     * qui lit la moyenne dans les statistiques des salaires
+     */
     @Query(value = "SELECT * FROM Employe WHERE salaire > (SELECT avg(e2.salaire) FROM Employe e2)", nativeQuery = true)
     List<T> findEmployePlusRiches();
+
+    // Pagination par clé (keyset) : chaque page reprend après la dernière ligne de la précédente au lieu de sauter //
+    // un offset, et un Slice ne compte pas les lignes. Le coût d'une page ne dépend pas de sa position. //
+    // Passer PageRequest(0, taille) : seule la taille est utilisée, le tri est celui de la requête. //
+
+    /**
+     * @param dernierId l'id du dernier employé de la page précédente, 0 pour la première page
+     * @param pageable la taille de la page
+     * @return les employés suivants par id croissant
+     */
+    Slice<T> findByIdGreaterThanOrderByIdAsc(Long dernierId, Pageable pageable);
+
+    /**
+     * @param dernierNom le nom du dernier employé de la page précédente, "" pour la première page
+     * @param dernierId l'id du dernier employé de la page précédente, 0 pour la première page
+     * @param pageable la taille de la page
+     * @return les employés suivants par nom puis id croissants (index sql/index_employe_nom.sql), sans ceux sans nom
+     */
+    @Query("select e from #{#entityName} e where e.nom > :dernierNom or (e.nom = :dernierNom and e.id > :dernierId) order by e.nom, e.id")
+    Slice<T> findNextByNomAndId(@Param("dernierNom") String dernierNom, @Param("dernierId") Long dernierId, Pageable pageable);
+
+    /**
+     * Variante par clé de {@link #rechercherParNom(String, Pageable)}, sans requête de comptage
+     * @param nomRecherche le nom recherché, normalisé par {@link NomRecherche#normaliser(String)}
+     * @param dernierId l'id du dernier employé de la page précédente, 0 pour la première page
+     * @param pageable la taille de la page
+     * @return les employés suivants de ce nom par id croissant
+     */
+    Slice<T> findByNomRechercheAndIdGreaterThanOrderByIdAsc(String nomRecherche, Long dernierId, Pageable pageable);
+
+    // Lectures en flux des requêtes ci-dessus : les lignes sont lues par lots de FETCH_SIZE au fil du parcours, //
+    // et les entités en lecture seule ne sont pas copiées pour la détection des modifications. //
+    // À appeler dans une transaction et à fermer après usage : voir LectureEnFlux pour le détachement périodique. //
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = FETCH_SIZE), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<T> streamByDateEmbaucheBefore(LocalDate date);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = FETCH_SIZE), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<T> streamByDateEmbaucheAfter(LocalDate date);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = FETCH_SIZE), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<T> streamBySalaireGreaterThanOrderBySalaireDesc(Double salaire);
+
+    /**
+     * Variante en flux de {@link #findEmployePlusRiches()}, en JPQL pour charger les employés du type du repository
+     * avec leurs colonnes propres
+     * @return les employés dont le salaire est supérieur au salaire moyen de tous les employés
+     */
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = FETCH_SIZE), @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select e from #{#entityName} e where e.salaire > (select avg(e2.salaire) from Employe e2)")
+    Stream<T> streamEmployePlusRiches();
+
+    // Projections sur les colonnes de la table Employe (voir EmployeResume), pour les listes, recherches et exports //
+    // qui n'ont pas besoin des colonnes propres aux types. Depuis EmployeRepository, aucune jointure n'est faite ; //
+    // depuis le repository d'un type, seule la jointure sur la table de ce type l'est. //
+
+    /**
+     * Variante en projection de {@link #findByIdGreaterThanOrderByIdAsc(Long, Pageable)}
+     * @param dernierId l'id du dernier employé de la page précédente, 0 pour la première page
+     * @param pageable la taille de la page
+     * @return les employés suivants par id croissant
+     */
+    @Query(SELECT_RESUME + " where e.id > ?1 order by e.id")
+    Slice<EmployeResume> findResumeByIdGreaterThanOrderByIdAsc(Long dernierId, Pageable pageable);
+
+    @Query(SELECT_RESUME)
+    Page<EmployeResume> findAllResume(Pageable pageable);
+
+    @Query(SELECT_RESUME + " where e.nomRecherche = ?1")
+    List<EmployeResume> findResumeByNomRecherche(String nomRecherche);
+
+    default List<EmployeResume> rechercherResumesParNom(String nom) {
+        return findResumeByNomRecherche(NomRecherche.normaliser(nom));
+    }
+
+    /**
+     * Lecture en flux de tous les employés en projection, par id croissant, pour les exports
+     * @return les employés par id croissant
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = FETCH_SIZE))
+    @Query(SELECT_RESUME + " order by e.id")
+    Stream<EmployeResume> streamAllResume();
 }
@@ -0,0 +1,18 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.model.ImportJob;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface ImportJobRepository extends CrudRepository<ImportJob, Long> {
+    ImportJob findFirstByFichierAndTailleFichierAndDateModificationAndStatutOrderByIdDesc(
+            String fichier, Long tailleFichier, Long dateModification, ImportJob.Statut statut);
+
+    @Modifying
+    @Query("update ImportJob j set j.ligneReprise = :ligneReprise, j.derniereLigneEcrite = :derniereLigneEcrite, " +
+            "j.nbEmployes = j.nbEmployes + :nbEmployes where j.id = :id")
+    int enregistrerCheckpoint(@Param("id") Long id, @Param("ligneReprise") Long ligneReprise,
+                              @Param("derniereLigneEcrite") Long derniereLigneEcrite, @Param("nbEmployes") Long nbEmployes);
+}
@@ -1,9 +1,55 @@
 package com.ipiecoles.java.java230.repository;
 
 import com.ipiecoles.java.java230.model.Manager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface ManagerRepository extends BaseEmployeRepository<Manager> {
     @EntityGraph(attributePaths = "equipe")
     Manager findOneWithEquipeById(Long id);
+
+    @Query("select m.matricule, m.id from Manager m")
+    List<Object[]> findAllMatriculeAndId();
+
+    @Query(value = "select m.id from Manager m", countQuery = "select count(m) from Manager m")
+    Page<Long> findAllIds(Pageable pageable);
+
+    @EntityGraph(attributePaths = "equipe")
+    List<Manager> findDistinctByIdIn(Collection<Long> ids);
+
+    /**
+     * Page de managers avec leur équipe chargée, en trois requêtes quelle que soit la taille de la page :
+     * les ids de la page, le nombre total de managers, puis les managers et leurs équipes en une jointure.
+     * La pagination se fait sur les ids : paginer directement une jointure sur l'équipe obligerait
+     * Hibernate à charger tous les managers pour découper la page en mémoire.
+     * @param pageable la page demandée, avec son tri éventuel
+     * @return la page de managers, dans l'ordre de la page demandée
+     */
+    default Page<Manager> findAllWithEquipe(Pageable pageable) {
+        Page<Long> ids = findAllIds(pageable);
+        Map<Long, Manager> managers = new HashMap<>();
+        if (ids.hasContent()) {
+            for (Manager manager : findDistinctByIdIn(ids.getContent())) {
+                managers.put(manager.getId(), manager);
+            }
+        }
+        return ids.map(managers::get);
+    }
+
+    /**
+     * @return pour chaque manager, son id et la taille de son équipe, sans charger les équipes
+     */
+    @Query("select m.id, count(t) from Manager m left join m.equipe t group by m.id")
+    List<Object[]> countEquipeParManager();
+
+    @Query("select m.id, count(t) from Manager m left join m.equipe t where m.id in :ids group by m.id")
+    List<Object[]> countEquipeByIdIn(@Param("ids") Collection<Long> ids);
 }
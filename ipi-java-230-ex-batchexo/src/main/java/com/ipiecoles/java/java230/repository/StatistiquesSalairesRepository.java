@@ -0,0 +1,7 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import org.springframework.data.repository.CrudRepository;
+
+public interface StatistiquesSalairesRepository extends CrudRepository<StatistiquesSalaires, String> {
+}
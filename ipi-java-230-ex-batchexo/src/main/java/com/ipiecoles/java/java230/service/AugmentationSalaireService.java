@@ -0,0 +1,167 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Augmentations de salaire en masse, par des UPDATE ensemblistes plutôt qu'en chargeant les entités.
+ * Chaque employé concerné reçoit exactement ce que lui donnerait {@link Employe#augmenterSalaire(Double)} :
+ * salaire * (1 + pourcentage), et l'augmentation d'un manager s'applique aussi aux techniciens de son équipe
+ * comme {@link Manager#augmenterSalaire(Double)}.
+ * Les employés sont traités par tranches d'ids de taille fixe, une transaction par tranche, pour que les verrous
+ * et le journal de la BDD restent bornés quelle que soit la taille de la table. Une augmentation interrompue
+ * laisse donc les tranches déjà traitées augmentées.
+ * Les entités déjà chargées dans un contexte de persistance ne voient pas ces modifications ;
+ * le cache des employés est vidé à la fin de chaque tranche.
+ * La somme des salaires augmentés de chaque type est lue avant l'UPDATE de chaque tranche et la variation
+ * appliquée aux statistiques des salaires dans la transaction de la tranche.
+ */
+@Service
+public class AugmentationSalaireService {
+
+    // Les sous-requêtes ne portent que sur les tables filles : MySQL refuse une sous-requête sur la table mise à jour //
+    private static final String UPDATE_SALAIRE = "update Employe set salaire = salaire * ? where id between ? and ?";
+
+    private static final String SOMME_SALAIRES = "select coalesce(sum(salaire), 0) from Employe where id between ? and ?";
+
+    private static final String EQUIPES = "(id in (select id from Manager) or id in (select id from Technicien where manager_id is not null))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    @Value("${batch.augmentation.chunk-size:10000}")
+    private int tailleTranche;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Augmente tous les employés, chacun une seule fois
+     * @param pourcentage le pourcentage d'augmentation, 0.1 pour 10%
+     * @return le bilan de l'augmentation
+     */
+    public ResultatAugmentation augmenterTous(double pourcentage) {
+        return augmenter("Augmentation de tous les employés", null, pourcentage);
+    }
+
+    /**
+     * Augmente un manager et les techniciens de son équipe
+     * @param idManager l'id du manager
+     * @param pourcentage le pourcentage d'augmentation, 0.1 pour 10%
+     * @return le bilan de l'augmentation
+     */
+    public ResultatAugmentation augmenterManager(Long idManager, double pourcentage) {
+        return augmenter("Augmentation du manager " + idManager + " et de son équipe",
+                "(id in (select id from Manager where id = ?) or id in (select id from Technicien where manager_id = ?))",
+                pourcentage, idManager, idManager);
+    }
+
+    /**
+     * Augmente tous les managers et les techniciens de leurs équipes
+     * @param pourcentage le pourcentage d'augmentation, 0.1 pour 10%
+     * @return le bilan de l'augmentation
+     */
+    public ResultatAugmentation augmenterManagers(double pourcentage) {
+        return augmenter("Augmentation des managers et de leurs équipes", EQUIPES, pourcentage);
+    }
+
+    /**
+     * Augmente les techniciens d'un grade
+     * @param grade le grade des techniciens, entre 1 et 5
+     * @param pourcentage le pourcentage d'augmentation, 0.1 pour 10%
+     * @return le bilan de l'augmentation
+     */
+    public ResultatAugmentation augmenterGrade(int grade, double pourcentage) {
+        return augmenter("Augmentation des techniciens de grade " + grade,
+                "id in (select id from Technicien where grade = ?)", pourcentage, grade);
+    }
+
+    /**
+     * Augmente les employés d'un type. Comme pour {@link Manager#augmenterSalaire(Double)}, augmenter les managers
+     * augmente aussi leurs équipes.
+     * @param type Manager, Technicien ou Commercial
+     * @param pourcentage le pourcentage d'augmentation, 0.1 pour 10%
+     * @return le bilan de l'augmentation
+     */
+    public ResultatAugmentation augmenterType(Class<? extends Employe> type, double pourcentage) {
+        if (Manager.class.equals(type)) {
+            return augmenterManagers(pourcentage);
+        }
+        if (Technicien.class.equals(type) || Commercial.class.equals(type)) {
+            return augmenter("Augmentation des employés de type " + type.getSimpleName(),
+                    "id in (select id from " + type.getSimpleName() + ")", pourcentage);
+        }
+        throw new IllegalArgumentException("Type d'employé non géré pour une augmentation : " + type);
+    }
+
+    /**
+     * Applique l'augmentation aux employés vérifiant la condition, tranche d'ids par tranche d'ids
+     * @param description la description de l'augmentation pour le bilan
+     * @param condition la condition SQL sur la table Employe, null pour tous les employés
+     * @param pourcentage le pourcentage d'augmentation
+     * @param parametres les paramètres de la condition
+     * @return le bilan de l'augmentation
+     */
+    private ResultatAugmentation augmenter(String description, String condition, double pourcentage, Object... parametres) {
+        long debut = System.nanoTime();
+        String sql = condition == null ? UPDATE_SALAIRE : UPDATE_SALAIRE + " and " + condition;
+        String somme = condition == null ? SOMME_SALAIRES : SOMME_SALAIRES + " and " + condition;
+        // Les tranches ne couvrent que les ids des employés concernés : une seule pour un manager et son équipe //
+        Map<String, Object> bornes = jdbcTemplate.queryForMap("select min(id) as debut, max(id) as fin from Employe"
+                + (condition == null ? "" : " where " + condition), parametres);
+        long nbEmployes = 0;
+        int nbTranches = 0;
+        if (bornes.get("debut") != null) {
+            long fin = ((Number) bornes.get("fin")).longValue();
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            for (long tranche = ((Number) bornes.get("debut")).longValue(); tranche <= fin; tranche += tailleTranche) {
+                List<Object> valeurs = new ArrayList<>(Arrays.asList(tranche, tranche + tailleTranche - 1));
+                valeurs.addAll(Arrays.asList(parametres));
+                nbEmployes += transaction.execute(status -> {
+                    VariationSalaires variation = new VariationSalaires();
+                    for (String type : StatistiquesSalairesService.TYPES) {
+                        double ancienneSomme = jdbcTemplate.queryForObject(somme + " and id in (select id from " + type + ")",
+                                Double.class, valeurs.toArray());
+                        if (ancienneSomme != 0) {
+                            variation.modifier(type, ancienneSomme, ancienneSomme * (1 + pourcentage));
+                        }
+                    }
+                    List<Object> valeursUpdate = new ArrayList<>(valeurs);
+                    valeursUpdate.add(0, 1 + pourcentage);
+                    int nbMisAJour = jdbcTemplate.update(sql, valeursUpdate.toArray());
+                    statistiquesSalairesService.appliquer(variation);
+                    cacheEmployes.invaliderApresTransaction();
+                    return nbMisAJour;
+                });
+                nbTranches++;
+            }
+        }
+        ResultatAugmentation resultat = new ResultatAugmentation(description, nbEmployes, nbTranches,
+                (System.nanoTime() - debut) / 1_000_000);
+        logger.info(resultat.toString());
+        return resultat;
+    }
+}
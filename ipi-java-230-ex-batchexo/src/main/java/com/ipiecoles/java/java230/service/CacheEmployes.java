@@ -0,0 +1,102 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Employe;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.Locale;
+
+/**
+ * Cache de second niveau des employés par id (findOne, findById) et cache des requêtes findByMatricule,
+ * régions LRU de taille bornée configurées dans ehcache-employes.xml.
+ * Hibernate tient ces caches à jour pour les écritures qui passent par les entités et les repositories.
+ * Les écritures JDBC (mises à jour de l'import en mode upsert, augmentations en masse) doivent les invalider
+ * par {@link #invaliderApresTransaction()}.
+ */
+@Component
+@ManagedResource(objectName = "com.ipiecoles.java.java230:type=CacheEmployes", description = "Cache des employés par id et par matricule")
+public class CacheEmployes {
+
+    private static final String REGION_EMPLOYES = Employe.class.getName();
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Vide le cache des employés et des requêtes
+     */
+    @ManagedOperation(description = "Vide le cache des employés et des requêtes")
+    public void invalider() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityRegion(Employe.class);
+        sessionFactory.getCache().evictQueryRegions();
+    }
+
+    /**
+     * Vide le cache à la fin de la transaction en cours, validée ou annulée, et tout de suite s'il n'y en a pas :
+     * vidé plus tôt, il pourrait être rempli de nouveau avec les lignes d'avant la transaction.
+     */
+    public void invaliderApresTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalider();
+                }
+            });
+        } else {
+            invalider();
+        }
+    }
+
+    private Statistics statistiques() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private SecondLevelCacheStatistics statistiquesEmployes() {
+        return statistiques().getSecondLevelCacheStatistics(REGION_EMPLOYES);
+    }
+
+    @ManagedAttribute(description = "Nombre d'employés lus dans le cache")
+    public long getEmployesTrouves() {
+        SecondLevelCacheStatistics statistiques = statistiquesEmployes();
+        return statistiques == null ? 0 : statistiques.getHitCount();
+    }
+
+    @ManagedAttribute(description = "Nombre d'employés cherchés dans le cache et lus en BDD")
+    public long getEmployesManques() {
+        SecondLevelCacheStatistics statistiques = statistiquesEmployes();
+        return statistiques == null ? 0 : statistiques.getMissCount();
+    }
+
+    @ManagedAttribute(description = "Nombre d'employés présents dans le cache")
+    public long getEmployesEnCache() {
+        SecondLevelCacheStatistics statistiques = statistiquesEmployes();
+        return statistiques == null ? 0 : statistiques.getElementCountInMemory();
+    }
+
+    @ManagedAttribute(description = "Nombre de requêtes dont le résultat a été lu dans le cache")
+    public long getRequetesTrouvees() {
+        return statistiques().getQueryCacheHitCount();
+    }
+
+    @ManagedAttribute(description = "Nombre de requêtes cherchées dans le cache et exécutées en BDD")
+    public long getRequetesManquees() {
+        return statistiques().getQueryCacheMissCount();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Cache des employés : %d trouvés, %d manqués, %d en cache ; requêtes : %d trouvées, %d manquées",
+                getEmployesTrouves(), getEmployesManques(), getEmployesEnCache(), getRequetesTrouvees(), getRequetesManquees());
+    }
+}
@@ -1,9 +1,16 @@
 package com.ipiecoles.java.java230.service;
 
 import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
 import com.ipiecoles.java.java230.repository.EmployeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class EmployeService {
@@ -11,6 +18,12 @@ public class EmployeService {
     @Autowired
     private EmployeRepository employeRepository;
 
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public Employe findById(Long id){
         return employeRepository.findOne(id);
     }
@@ -19,11 +32,46 @@ public class EmployeService {
         return employeRepository.count();
     }
 
+    @Transactional
     public void deleteEmploye(Long id){
+        Employe employe = employeRepository.findOne(id);
         employeRepository.delete(id);
+        VariationSalaires variation = new VariationSalaires();
+        variation.retirer(StatistiquesSalaires.typeDe(employe), employe.getSalaire());
+        statistiquesSalairesService.appliquer(variation);
     }
 
+    @Transactional
     public Employe creerEmploye(Employe e) {
-        return employeRepository.save(e);
+        VariationSalaires variation = new VariationSalaires();
+        // Le salaire en base, et non celui d'une entité déjà chargée et peut-être modifiée //
+        List<Double> ancienSalaire = e.getId() == null ? Collections.emptyList()
+                : jdbcTemplate.queryForList("select salaire from Employe where id = ?", Double.class, e.getId());
+        if (!ancienSalaire.isEmpty()) {
+            variation.retirer(StatistiquesSalaires.typeDe(e), ancienSalaire.get(0));
+        }
+        variation.ajouter(StatistiquesSalaires.typeDe(e), e.getSalaire());
+        Employe employe = employeRepository.save(e);
+        statistiquesSalairesService.appliquer(variation);
+        return employe;
+    }
+
+    /**
+     * @return les employés dont le salaire est supérieur au salaire moyen, du plus riche au moins riche.
+     * La moyenne est lue dans les statistiques des salaires et la comparaison utilise l'index sur le salaire.
+     */
+    public List<Employe> findEmployePlusRiches() {
+        Double salaireMoyen = statistiquesSalairesService.getSalaireMoyen();
+        return salaireMoyen == null ? Collections.emptyList()
+                : employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(salaireMoyen);
+    }
+
+    /**
+     * Variante en flux de {@link #findEmployePlusRiches()}, à parcourir avec {@link LectureEnFlux}
+     */
+    public Stream<Employe> streamEmployePlusRiches() {
+        Double salaireMoyen = statistiquesSalairesService.getSalaireMoyen();
+        return salaireMoyen == null ? Stream.empty()
+                : employeRepository.streamBySalaireGreaterThanOrderBySalaireDesc(salaireMoyen);
     }
 }
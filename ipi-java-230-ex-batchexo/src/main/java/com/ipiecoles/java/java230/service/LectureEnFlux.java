@@ -0,0 +1,48 @@
+package com.ipiecoles.java.java230.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Parcours en mémoire constante des lectures en flux des repositories (méthodes stream... de BaseEmployeRepository).
+ * Le flux est ouvert dans une transaction en lecture seule et fermé à la fin, et le contexte de persistance est vidé
+ * toutes les batch.lecture.detach-interval entités : les entités déjà traitées ne restent pas en mémoire.
+ * Le traitement ne doit donc pas conserver d'entités ni compter sur leur chargement paresseux après coup.
+ */
+@Service
+public class LectureEnFlux {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${batch.lecture.detach-interval:1000}")
+    private int intervalleDetachement;
+
+    /**
+     * @param requete la lecture en flux, par exemple {@code () -> employeRepository.streamByDateEmbaucheBefore(date)}
+     * @param traitement le traitement de chaque entité lue
+     * @param <T> le type des entités lues
+     * @return le nombre d'entités traitées
+     */
+    @Transactional(readOnly = true)
+    public <T> long parcourir(Supplier<Stream<T>> requete, Consumer<? super T> traitement) {
+        long nbEntites = 0;
+        try (Stream<T> entites = requete.get()) {
+            for (T entite : (Iterable<T>) entites::iterator) {
+                traitement.accept(entite);
+                if (++nbEntites % intervalleDetachement == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.clear();
+        return nbEntites;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.paie.ColonnesEmployes;
+import com.ipiecoles.java.java230.paie.MoteurPaie;
+import com.ipiecoles.java.java230.paie.RapportPaie;
+import org.joda.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+
+/**
+ * Calcul de la paie de tous les employés. Les employés sont lus en une seule requête, ligne à ligne,
+ * directement dans des colonnes de types primitifs : aucune entité n'est chargée et la taille des équipes
+ * est comptée par la BDD.
+ */
+@Service
+public class PaieService {
+
+    private static final String SELECT_PAIE = "select e.id, e.salaire, year(e.dateEmbauche) as anneeEmbauche, "
+            + "t.id as idTechnicien, t.grade, c.id as idCommercial, c.caAnnuel, eq.tailleEquipe from Employe e "
+            + "left join Technicien t on t.id = e.id left join Commercial c on c.id = e.id "
+            + "left join (select manager_id, count(*) as tailleEquipe from Technicien group by manager_id) eq on eq.manager_id = e.id";
+
+    private static final int FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param dateReference la date à laquelle la paie est calculée, la même pour tous les employés
+     * @return la prime annuelle et les congés de chaque employé, avec les totaux par type
+     */
+    public RapportPaie calculerPaie(LocalDate dateReference) {
+        long debut = System.nanoTime();
+        ColonnesEmployes colonnes = new ColonnesEmployes(jdbcTemplate.queryForObject("select count(*) from Employe", Integer.class));
+        JdbcTemplate lecture = new JdbcTemplate(jdbcTemplate.getDataSource());
+        lecture.setFetchSize(FETCH_SIZE);
+        lecture.query(SELECT_PAIE, (ResultSet rs) -> {
+            int anneeEmbauche = rs.getInt("anneeEmbauche");
+            if (rs.wasNull()) {
+                anneeEmbauche = ColonnesEmployes.ANNEE_INCONNUE;
+            }
+            byte type;
+            if (rs.getObject("idTechnicien") != null) {
+                type = ColonnesEmployes.TECHNICIEN;
+            } else if (rs.getObject("idCommercial") != null) {
+                type = ColonnesEmployes.COMMERCIAL;
+            } else {
+                type = ColonnesEmployes.MANAGER;
+            }
+            colonnes.ajouter(rs.getLong("id"), type, rs.getDouble("salaire"), anneeEmbauche, rs.getInt("grade"),
+                    rs.getDouble("caAnnuel"), rs.getInt("tailleEquipe"));
+        });
+        long finLecture = System.nanoTime();
+        RapportPaie rapport = MoteurPaie.calculer(colonnes, dateReference);
+        logger.info(rapport + String.format("%n  Lecture %d ms, calcul %d ms", (finLecture - debut) / 1_000_000,
+                (System.nanoTime() - finLecture) / 1_000_000));
+        return rapport;
+    }
+
+    public RapportPaie calculerPaie() {
+        return calculerPaie(LocalDate.now());
+    }
+}
@@ -0,0 +1,46 @@
+package com.ipiecoles.java.java230.service;
+
+import java.util.Locale;
+
+/**
+ * Bilan d'une augmentation de salaire en masse : employés augmentés, nombre de paquets et durée
+ */
+public class ResultatAugmentation {
+
+    private final String description;
+
+    private final long nbEmployes;
+
+    private final int nbPaquets;
+
+    private final long dureeMs;
+
+    public ResultatAugmentation(String description, long nbEmployes, int nbPaquets, long dureeMs) {
+        this.description = description;
+        this.nbEmployes = nbEmployes;
+        this.nbPaquets = nbPaquets;
+        this.dureeMs = dureeMs;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getNbEmployes() {
+        return nbEmployes;
+    }
+
+    public int getNbPaquets() {
+        return nbPaquets;
+    }
+
+    public long getDureeMs() {
+        return dureeMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s : %d employés augmentés en %d paquets (%d ms)",
+                description, nbEmployes, nbPaquets, dureeMs);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.repository.StatistiquesSalairesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistiques des salaires par type d'employé (nombre, somme, minimum, maximum), matérialisées dans la table
+ * StatistiquesSalaires au lieu d'être recalculées sur toute la table Employe à chaque lecture.
+ * Chaque écriture d'employés (import, création, suppression, augmentation) applique sa variation dans sa propre
+ * transaction par un UPDATE relatif : les écritures concurrentes ne s'écrasent pas.
+ * La somme est cumulée en double : {@link #recalculer()} la remet au centime près si besoin.
+ */
+@Service
+public class StatistiquesSalairesService {
+
+    public static final String[] TYPES = {"Manager", "Technicien", "Commercial"};
+
+    private static final String UPDATE_NB_SOMME = "update StatistiquesSalaires set nbEmployes = nbEmployes + ?, "
+            + "sommeSalaires = sommeSalaires + ?";
+
+    private static final String INSERT_STATISTIQUES = "insert into StatistiquesSalaires (typeEmploye, nbEmployes, "
+            + "sommeSalaires, salaireMin, salaireMax, minMaxAJour) select '%1$s', count(e.salaire), coalesce(sum(e.salaire), 0), "
+            + "min(e.salaire), max(e.salaire), true from Employe e join %1$s t on t.id = e.id";
+
+    private static final String SELECT_EXTREMES = "select min(e.salaire) as salaireMin, max(e.salaire) as salaireMax "
+            + "from Employe e join %s t on t.id = e.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatistiquesSalairesRepository statistiquesSalairesRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Applique la variation aux statistiques, dans la transaction de l'écriture qui l'a causée.
+     * Tant que les statistiques n'ont jamais été calculées (voir sql/statistiques_salaires.sql), il n'y a rien
+     * à mettre à jour : le premier calcul lira les employés écrits.
+     * @param variation la variation des salaires de l'écriture
+     */
+    public void appliquer(VariationSalaires variation) {
+        for (Map.Entry<String, VariationSalaires.Variation> entree : variation.getVariations().entrySet()) {
+            VariationSalaires.Variation v = entree.getValue();
+            if (v.minMaxPerimes) {
+                jdbcTemplate.update(UPDATE_NB_SOMME + ", minMaxAJour = false where typeEmploye = ?",
+                        v.nbEmployes, v.sommeSalaires, entree.getKey());
+            } else if (v.salaireMin != null) {
+                jdbcTemplate.update(UPDATE_NB_SOMME
+                                + ", salaireMin = case when salaireMin is null or salaireMin > ? then ? else salaireMin end"
+                                + ", salaireMax = case when salaireMax is null or salaireMax < ? then ? else salaireMax end"
+                                + " where typeEmploye = ?",
+                        v.nbEmployes, v.sommeSalaires, v.salaireMin, v.salaireMin, v.salaireMax, v.salaireMax, entree.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return les statistiques de chaque type d'employé, calculées au premier appel. Le minimum et le maximum
+     * périmés par une suppression ou une augmentation sont recalculés.
+     */
+    @Transactional
+    public List<StatistiquesSalaires> getStatistiques() {
+        if (statistiquesSalairesRepository.count() < TYPES.length) {
+            recalculer();
+        }
+        for (String type : TYPES) {
+            if (!jdbcTemplate.queryForObject("select minMaxAJour from StatistiquesSalaires where typeEmploye = ?",
+                    Boolean.class, type)) {
+                Map<String, Object> extremes = jdbcTemplate.queryForMap(String.format(SELECT_EXTREMES, type));
+                jdbcTemplate.update("update StatistiquesSalaires set salaireMin = ?, salaireMax = ?, minMaxAJour = true "
+                        + "where typeEmploye = ?", extremes.get("salaireMin"), extremes.get("salaireMax"), type);
+            }
+        }
+        List<StatistiquesSalaires> statistiques = new ArrayList<>();
+        statistiquesSalairesRepository.findAll().forEach(statistiques::add);
+        return statistiques;
+    }
+
+    /**
+     * @return le salaire moyen de tous les employés, lu dans les statistiques sans parcourir la table Employe,
+     * null s'il n'y a aucun salaire
+     */
+    @Transactional
+    public Double getSalaireMoyen() {
+        if (statistiquesSalairesRepository.count() < TYPES.length) {
+            recalculer();
+        }
+        Map<String, Object> totaux = jdbcTemplate.queryForMap(
+                "select sum(nbEmployes) as nbEmployes, sum(sommeSalaires) as sommeSalaires from StatistiquesSalaires");
+        long nbEmployes = ((Number) totaux.get("nbEmployes")).longValue();
+        return nbEmployes == 0 ? null : ((Number) totaux.get("sommeSalaires")).doubleValue() / nbEmployes;
+    }
+
+    /**
+     * Recalcule entièrement les statistiques à partir de la table Employe
+     */
+    @Transactional
+    public void recalculer() {
+        long debut = System.nanoTime();
+        jdbcTemplate.update("delete from StatistiquesSalaires");
+        for (String type : TYPES) {
+            jdbcTemplate.update(String.format(INSERT_STATISTIQUES, type));
+        }
+        logger.info("Statistiques des salaires recalculées en {} ms", (System.nanoTime() - debut) / 1_000_000);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Variation des statistiques des salaires causée par une écriture d'employés (un paquet d'import,
+ * une tranche d'augmentation...), cumulée par type d'employé puis appliquée en une requête par type
+ * par {@link StatistiquesSalairesService#appliquer(VariationSalaires)}.
+ */
+public class VariationSalaires {
+
+    private final Map<String, Variation> variations = new LinkedHashMap<>();
+
+    /**
+     * @param type le type de l'employé ajouté, voir {@link StatistiquesSalaires#typeDe}
+     * @param salaire son salaire, null s'il n'en a pas
+     */
+    public void ajouter(String type, Double salaire) {
+        if (salaire != null) {
+            Variation variation = variation(type);
+            variation.nbEmployes++;
+            variation.sommeSalaires += salaire;
+            variation.salaireMin = variation.salaireMin == null ? salaire : Math.min(variation.salaireMin, salaire);
+            variation.salaireMax = variation.salaireMax == null ? salaire : Math.max(variation.salaireMax, salaire);
+        }
+    }
+
+    /**
+     * @param type le type de l'employé supprimé
+     * @param salaire son salaire, null s'il n'en avait pas
+     */
+    public void retirer(String type, Double salaire) {
+        if (salaire != null) {
+            Variation variation = variation(type);
+            variation.nbEmployes--;
+            variation.sommeSalaires -= salaire;
+            variation.minMaxPerimes = true;
+        }
+    }
+
+    /**
+     * Modification des salaires d'employés qui en avaient déjà un et en ont toujours un
+     * @param type le type des employés modifiés
+     * @param ancienneSomme la somme de leurs salaires avant la modification
+     * @param nouvelleSomme la somme de leurs salaires après la modification
+     */
+    public void modifier(String type, double ancienneSomme, double nouvelleSomme) {
+        Variation variation = variation(type);
+        variation.sommeSalaires += nouvelleSomme - ancienneSomme;
+        variation.minMaxPerimes = true;
+    }
+
+    public boolean isVide() {
+        return variations.isEmpty();
+    }
+
+    Map<String, Variation> getVariations() {
+        return variations;
+    }
+
+    private Variation variation(String type) {
+        return variations.computeIfAbsent(type, t -> new Variation());
+    }
+
+    static class Variation {
+
+        long nbEmployes;
+
+        double sommeSalaires;
+
+        // Extrêmes des salaires ajoutés, null si aucun //
+        Double salaireMin;
+
+        Double salaireMax;
+
+        boolean minMaxPerimes;
+    }
+}
@@ -0,0 +1,21 @@
+-- Colonnes de recherche par nom et prénom : en minuscules et sans accents (voir NomRecherche), indexées
+-- pour que les recherches soient des lectures d'index au lieu d'un parcours de la table avec lower().
+ALTER TABLE Employe
+    ADD COLUMN nomRecherche VARCHAR(255),
+    ADD COLUMN prenomRecherche VARCHAR(255),
+    ADD INDEX idx_employe_nomrecherche (nomRecherche),
+    ADD INDEX idx_employe_prenomrecherche (prenomRecherche);
+
+-- Reprise des employés existants. Les nouveaux employés et les modifications sont normalisés par l'application.
+-- Les accents du français sont retirés ici ; un autre caractère accentué reste tel quel jusqu'à la prochaine
+-- modification de l'employé.
+UPDATE Employe SET
+    nomRecherche = LOWER(nom),
+    prenomRecherche = LOWER(prenom);
+UPDATE Employe SET
+    nomRecherche = REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(
+        nomRecherche, 'à', 'a'), 'â', 'a'), 'ä', 'a'), 'é', 'e'), 'è', 'e'), 'ê', 'e'), 'ë', 'e'), 'î', 'i'), 'ï', 'i'),
+        'ô', 'o'), 'ö', 'o'), 'ù', 'u'), 'û', 'u'), 'ü', 'u'), 'ç', 'c'), 'ÿ', 'y'),
+    prenomRecherche = REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(REPLACE(
+        prenomRecherche, 'à', 'a'), 'â', 'a'), 'ä', 'a'), 'é', 'e'), 'è', 'e'), 'ê', 'e'), 'ë', 'e'), 'î', 'i'), 'ï', 'i'),
+        'ô', 'o'), 'ö', 'o'), 'ù', 'u'), 'û', 'u'), 'ü', 'u'), 'ç', 'c'), 'ÿ', 'y');
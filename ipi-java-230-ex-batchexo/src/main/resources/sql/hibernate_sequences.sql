@@ -0,0 +1,11 @@
+-- Table utilisée par le générateur d'identifiants des employés (TableGenerator + optimiseur pooled).
+-- Contrairement à un id AUTO_INCREMENT, elle permet à Hibernate de regrouper les INSERT en batchs JDBC.
+-- La valeur initiale vaut max(id) + increment_size : les premiers ids attribués suivent donc les ids existants.
+CREATE TABLE IF NOT EXISTS hibernate_sequences (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO hibernate_sequences (sequence_name, next_val)
+SELECT 'Employe', COALESCE(MAX(id), 0) + 50 FROM Employe;
@@ -0,0 +1,15 @@
+-- Suivi des imports du fichier CSV : un import interrompu (statut EN_COURS) reprend après ligneReprise.
+CREATE TABLE IF NOT EXISTS ImportJob (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    fichier VARCHAR(255),
+    tailleFichier BIGINT,
+    dateModification BIGINT,
+    statut VARCHAR(20),
+    ligneReprise BIGINT,
+    derniereLigneEcrite BIGINT,
+    nbEmployes BIGINT,
+    dateDebut DATETIME,
+    dateFin DATETIME,
+    PRIMARY KEY (id),
+    INDEX idx_importjob_fichier (fichier, statut)
+);
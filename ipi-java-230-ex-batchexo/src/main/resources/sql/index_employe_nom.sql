@@ -0,0 +1,3 @@
+-- Index de la pagination par clé sur (nom, id) : chaque page est une lecture d'intervalle dans l'index,
+-- quelle que soit sa position dans la table. Index déclaré dans Employe : ce script ne sert qu'aux bases existantes.
+CREATE INDEX idx_employe_nom_id ON Employe (nom, id);
@@ -0,0 +1,25 @@
+-- Statistiques des salaires par type d'employé, tenues à jour par l'application à chaque écriture d'employés.
+-- Les lignes sont calculées ici une première fois à partir des employés existants.
+CREATE TABLE IF NOT EXISTS StatistiquesSalaires (
+    typeEmploye VARCHAR(20) NOT NULL,
+    nbEmployes BIGINT,
+    sommeSalaires DOUBLE,
+    salaireMin DOUBLE,
+    salaireMax DOUBLE,
+    minMaxAJour BOOLEAN,
+    PRIMARY KEY (typeEmploye)
+);
+
+DELETE FROM StatistiquesSalaires;
+INSERT INTO StatistiquesSalaires
+SELECT 'Manager', COUNT(e.salaire), COALESCE(SUM(e.salaire), 0), MIN(e.salaire), MAX(e.salaire), TRUE
+FROM Employe e JOIN Manager t ON t.id = e.id;
+INSERT INTO StatistiquesSalaires
+SELECT 'Technicien', COUNT(e.salaire), COALESCE(SUM(e.salaire), 0), MIN(e.salaire), MAX(e.salaire), TRUE
+FROM Employe e JOIN Technicien t ON t.id = e.id;
+INSERT INTO StatistiquesSalaires
+SELECT 'Commercial', COUNT(e.salaire), COALESCE(SUM(e.salaire), 0), MIN(e.salaire), MAX(e.salaire), TRUE
+FROM Employe e JOIN Commercial t ON t.id = e.id;
+
+-- Index des requêtes "salaire supérieur à la moyenne", qui lisent la moyenne dans la table ci-dessus
+CREATE INDEX idx_employe_salaire ON Employe (salaire);
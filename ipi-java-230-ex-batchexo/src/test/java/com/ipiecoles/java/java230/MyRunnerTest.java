@@ -0,0 +1,187 @@
+package com.ipiecoles.java.java230;
+
+import com.ipiecoles.java.java230.model.ImportJob;
+import com.ipiecoles.java.java230.repository.ImportJobRepository;
+import com.ipiecoles.java.java230.service.CacheEmployes;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Import complet d'un fichier du disque dans une base H2 en mémoire, par paquets plus petits que le fichier.
+ * Le fichier employes.csv du classpath est importé au démarrage de l'application : les tables sont vidées avant chaque test.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.username=sa",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "batch.import.commit-interval=2",
+        "batch.import.threads=2",
+        "batch.import.block-size=3"})
+public class MyRunnerTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    @Autowired
+    private MyRunner myRunner;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    // Manager du technicien de matricule donné, par son matricule //
+    private static final String MANAGER_DE = "select m.matricule from Technicien t join Employe e on e.id = t.id "
+            + "join Employe m on m.id = t.manager_id where e.matricule = ?";
+
+    @Before
+    public void setUp() throws Exception {
+        for (String table : new String[]{"Technicien", "Commercial", "Manager", "Employe", "StatistiquesSalaires", "ImportJob"}) {
+            jdbcTemplate.update("delete from " + table);
+        }
+        cacheEmployes.invalider();
+    }
+
+    @Test
+    public void testImportParPaquets() throws Exception {
+        //Given
+        Path fichier = fichier(
+                "M00001,durand,jacques,04/06/2013,1200.5",
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00001",
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100",
+                "M00002,Lefèvre,zoé,04/06/2013,1500",
+                "M12,durand,jacques,04/06/2013,1200.5",
+                "T00002,martin,paul,12/03/2003,1500,2,M00002",
+                "T00003,petit,luc,12/03/2003,1600,3,M00001");
+
+        //When
+        long nbEmployes = myRunner.readFile(fichier);
+
+        //Then
+        Assertions.assertThat(nbEmployes).isEqualTo(6);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(distinct id) from Employe", Long.class)).isEqualTo(6);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Manager", Long.class)).isEqualTo(2);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Technicien", Long.class)).isEqualTo(3);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Commercial", Long.class)).isEqualTo(1);
+        Assertions.assertThat(jdbcTemplate.queryForObject(MANAGER_DE, String.class, "T00001")).isEqualTo("M00001");
+        Assertions.assertThat(jdbcTemplate.queryForObject(MANAGER_DE, String.class, "T00002")).isEqualTo("M00002");
+        Assertions.assertThat(jdbcTemplate.queryForObject(MANAGER_DE, String.class, "T00003")).isEqualTo("M00001");
+
+        // Les ids attribués par le générateur ne dépassent pas la valeur réservée dans hibernate_sequences //
+        Assertions.assertThat(jdbcTemplate.queryForObject("select next_val from hibernate_sequences where sequence_name = 'Employe'",
+                Long.class)).isGreaterThanOrEqualTo(jdbcTemplate.queryForObject("select max(id) from Employe", Long.class));
+
+        ImportJob job = importJobRepository.findAll().iterator().next();
+        Assertions.assertThat(job.getFichier()).isEqualTo(fichier.toAbsolutePath().toString());
+        Assertions.assertThat(job.getStatut()).isEqualTo(ImportJob.Statut.TERMINE);
+        Assertions.assertThat(job.getLigneReprise()).isEqualTo(7);
+        Assertions.assertThat(job.getDerniereLigneEcrite()).isEqualTo(7);
+        Assertions.assertThat(job.getNbEmployes()).isEqualTo(6);
+        Assertions.assertThat(job.getDateFin()).isNotNull();
+    }
+
+    @Test
+    public void testTechniciensLusAvantLeurManager() throws Exception {
+        //Given
+        Path fichier = fichier(
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00001",
+                "T00002,martin,paul,12/03/2003,1500,2,M00009",
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00002,aubert,anne,05/09/2018,2200.5,150000,100",
+                "M00001,durand,jacques,04/06/2013,1200.5");
+
+        //When
+        long nbEmployes = myRunner.readFile(fichier);
+
+        //Then
+        Assertions.assertThat(nbEmployes).isEqualTo(4);
+        Assertions.assertThat(jdbcTemplate.queryForObject(MANAGER_DE, String.class, "T00001")).isEqualTo("M00001");
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Employe where matricule = 'T00002'",
+                Long.class)).isEqualTo(0);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Technicien", Long.class)).isEqualTo(1);
+        Assertions.assertThat(Files.readAllLines(fichier.resolveSibling("employes.csv.rejets.csv"), StandardCharsets.UTF_8))
+                .containsSequence("# Ligne 2 MANAGER_INTROUVABLE : Le manager de matricule M00009 n'a pas été trouvé "
+                        + "dans le fichier ou en base de données", "T00002,martin,paul,12/03/2003,1500,2,M00009");
+        ImportJob job = importJobRepository.findAll().iterator().next();
+        Assertions.assertThat(job.getStatut()).isEqualTo(ImportJob.Statut.TERMINE);
+        Assertions.assertThat(job.getNbEmployes()).isEqualTo(4);
+    }
+
+    @Test
+    public void testRepriseApresUnTechnicienEnAttente() throws Exception {
+        //Given
+        String[] lignes = {
+                "M00001,durand,jacques,04/06/2013,1200.5",
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00002",
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100",
+                "M00005,martin,paul,04/06/2013,1500",
+                "XXXXXX,durand,jacques,04/06/2013,1200.5",
+                "C00002,aubert,anne,05/09/2018,2200.5,150000,100",
+                "M00002,Lefèvre,zoé,04/06/2013,1500",
+                "YYYYYY,durand,jacques,04/06/2013,1200.5"};
+        myRunner.readFile(fichierNomme("precedent.csv", "M00005,martin,paul,04/06/2013,1500"));
+        // Import interrompu après le paquet de la ligne 7 : le point de reprise est retenu par le technicien en attente //
+        myRunner.readFile(fichierNomme("interrompu.csv", lignes[0], lignes[2], lignes[5], lignes[6]));
+        jdbcTemplate.update("delete from ImportJob");
+        Path fichier = fichier(lignes);
+        ImportJob job = new ImportJob(fichier.toAbsolutePath().toString(), Files.size(fichier),
+                Files.getLastModifiedTime(fichier).toMillis());
+        job.setLigneReprise(1L);
+        job.setDerniereLigneEcrite(7L);
+        job.setNbEmployes(4L);
+        importJobRepository.save(job);
+        String entete = "# Lignes rejetées par l'import : une fois corrigé, ce fichier peut être importé, "
+                + "les lignes commençant par # sont ignorées";
+        String rejetExistant = "# Ligne 4 MATRICULE_EXISTANT : Un employé de matricule M00005 existe déjà en base de données";
+        Path rejets = fichier.resolveSibling("employes.csv.rejets.csv");
+        Files.write(rejets, Arrays.asList(entete, rejetExistant, lignes[3],
+                "# Ligne 5 TYPE_INCONNU : Type d'employé inconnu : X", lignes[4],
+                "# Ligne 8 TYPE_INCONNU : Type d'employé inconnu : Y", lignes[7]), StandardCharsets.UTF_8);
+        cacheEmployes.invalider();
+
+        //When
+        long nbEmployes = myRunner.readFile(fichier);
+
+        //Then
+        Assertions.assertThat(nbEmployes).isEqualTo(1);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Employe", Long.class)).isEqualTo(6);
+        Assertions.assertThat(jdbcTemplate.queryForObject(MANAGER_DE, String.class, "T00001")).isEqualTo("M00002");
+        // Le rejet de la ligne 4, ignorée par la reprise, est conservé et les lignes relues ne sont rejetées qu'une fois //
+        Assertions.assertThat(Files.readAllLines(rejets, StandardCharsets.UTF_8)).containsExactly(entete,
+                rejetExistant, lignes[3],
+                "# Ligne 5 TYPE_INCONNU : Type d'employé inconnu : X", lignes[4],
+                "# Ligne 8 TYPE_INCONNU : Type d'employé inconnu : Y", lignes[7]);
+        Assertions.assertThat(importJobRepository.findOne(job.getId()).getStatut()).isEqualTo(ImportJob.Statut.TERMINE);
+    }
+
+    private Path fichier(String... lignes) throws Exception {
+        return fichierNomme("employes.csv", lignes);
+    }
+
+    private Path fichierNomme(String nom, String... lignes) throws Exception {
+        Path fichier = dossier.newFile(nom).toPath();
+        Files.write(fichier, Arrays.asList(lignes), StandardCharsets.UTF_8);
+        return fichier;
+    }
+}
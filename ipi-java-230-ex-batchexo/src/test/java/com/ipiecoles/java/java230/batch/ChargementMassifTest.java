@@ -0,0 +1,127 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import com.ipiecoles.java.java230.service.CacheEmployes;
+import com.ipiecoles.java.java230.service.StatistiquesSalairesService;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Chargement massif des fichiers intermédiaires par CSVREAD dans une base H2 en mémoire.
+ * Le chargement est validé dans sa propre transaction, comme lors d'un import, avant que Hibernate n'attribue d'autres ids.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ChargementMassif.class, StatistiquesSalairesService.class, CacheEmployes.class, ImportMetrics.class})
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class ChargementMassifTest {
+
+    @Autowired
+    private ChargementMassif chargementMassif;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    @After
+    public void tearDown() throws Exception {
+        for (String table : new String[]{"Technicien", "Commercial", "Manager", "Employe", "StatistiquesSalaires"}) {
+            jdbcTemplate.update("delete from " + table);
+        }
+        cacheEmployes.invalider();
+    }
+
+    @Test
+    public void testChargementDesTablesEtDesManagers() throws Exception {
+        //Given
+        Manager managerEnBase = managerRepository.save(new Manager("durand", "jacques", "M00001",
+                new LocalDate(2013, 6, 4), 2500.0, new HashSet<>()));
+        ManagerIndex managers = ManagerIndex.charger(managerRepository);
+        String[] lignes = {
+                "M00002,Lefèvre,\"Zoé\",04/06/2013,1200.5",
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00001",
+                "T00002,martin,paul,12/03/2003,1500,2,M00002",
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100"};
+
+        //When
+        long nbEmployes;
+        try (FichiersChargement fichiers = new FichiersChargement()) {
+            for (int i = 0; i < lignes.length; i++) {
+                LigneEmploye ligne = parser.parse(i + 1, lignes[i]);
+                if (ligne.getEmploye() instanceof Manager) {
+                    managers.declarer(ligne.getEmploye().getMatricule());
+                }
+                fichiers.ajouter(ligne, managers);
+            }
+            fichiers.terminer();
+            nbEmployes = chargementMassif.charger(fichiers);
+        }
+
+        // Plus d'employés qu'un bloc d'ids d'Hibernate, pour qu'il en réserve un nouveau après le chargement //
+        List<Manager> suivants = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            suivants.add(new Manager("petit", "luc", String.format("M%05d", 100 + i), new LocalDate(2013, 6, 4), 1500.0, new HashSet<>()));
+        }
+        managerRepository.save(suivants);
+
+        //Then
+        Assertions.assertThat(nbEmployes).isEqualTo(4);
+        Manager managerDuFichier = (Manager) employeRepository.findByMatricule("M00002");
+        Technicien technicien = (Technicien) employeRepository.findByMatricule("T00001");
+        Commercial commercial = (Commercial) employeRepository.findByMatricule("C00001");
+        Assertions.assertThat(managerDuFichier.getNom()).isEqualTo("Lefèvre");
+        Assertions.assertThat(managerDuFichier.getPrenom()).isEqualTo("\"Zoé\"");
+        Assertions.assertThat(managerDuFichier.getDateEmbauche()).isEqualTo(new LocalDate(2013, 6, 4));
+        Assertions.assertThat(technicien.getGrade()).isEqualTo(5);
+        Assertions.assertThat(technicien.getSalaire()).isEqualTo(1700.5 * 1.5);
+        Assertions.assertThat(commercial.getCaAnnuel()).isEqualTo(150000d);
+        Assertions.assertThat(commercial.getPerformance()).isEqualTo(100);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select nomRecherche from Employe where matricule = 'M00002'",
+                String.class)).isEqualTo("lefevre");
+
+        // Manager en BDD désigné par son id, manager du fichier par son rang //
+        String managerDe = "select t.manager_id from Technicien t join Employe e on e.id = t.id where e.matricule = ?";
+        Assertions.assertThat(jdbcTemplate.queryForObject(managerDe, Long.class, "T00001")).isEqualTo(managerEnBase.getId());
+        Assertions.assertThat(jdbcTemplate.queryForObject(managerDe, Long.class, "T00002")).isEqualTo(managerDuFichier.getId());
+
+        // Les ids chargés suivent ceux de la BDD et ne sont pas attribués par Hibernate après le chargement //
+        Assertions.assertThat(managerDuFichier.getId()).isGreaterThan(managerEnBase.getId());
+        Assertions.assertThat(suivants).extracting(Manager::getId).doesNotContain(
+                managerDuFichier.getId(), technicien.getId(), commercial.getId());
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(distinct id) from Employe", Long.class)).isEqualTo(105);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select nbEmployes from StatistiquesSalaires where typeEmploye = 'Technicien'",
+                Long.class)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,130 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.MyRunner;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.service.CacheEmployes;
+import com.ipiecoles.java.java230.service.StatistiquesSalairesService;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Mise à jour par JDBC des employés modifiés en mode upsert, sur une base H2 en mémoire : un premier import
+ * crée les employés, un second import du fichier modifié met à jour les trois tables et les statistiques des salaires.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:upsert;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.username=sa",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "batch.import.mode=upsert",
+        "batch.import.commit-interval=2"})
+public class EmployeChunkWriterTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    @Autowired
+    private MyRunner myRunner;
+
+    @Autowired
+    private ImportMetrics metrics;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    @Before
+    public void setUp() throws Exception {
+        for (String table : new String[]{"Technicien", "Commercial", "Manager", "Employe", "StatistiquesSalaires", "ImportJob"}) {
+            jdbcTemplate.update("delete from " + table);
+        }
+        cacheEmployes.invalider();
+    }
+
+    @Test
+    public void testMiseAJourDesEmployesModifies() throws Exception {
+        //Given
+        myRunner.readFile(fichier("initial.csv",
+                "M00001,durand,jacques,04/06/2013,1200.5",
+                "M00002,martin,paul,04/06/2013,1300",
+                "T00001,dupont,pierre,12/03/2003,1700.5,2,M00001",
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00002,petit,luc,05/09/2018,1800,90000,80"));
+        statistiquesSalairesService.recalculer();
+        Map<String, Object> technicienAvant = employe("T00001");
+
+        //When
+        long nbEmployes = myRunner.readFile(fichier("modifie.csv",
+                "M00001,durand,jacques,04/06/2013,1200.5",
+                "M00002,Lefèvre,Zoé,04/06/2013,1300",
+                "T00001,dupont,pierre,12/03/2003,1900,4,M00002",
+                "C00001,aubert,michel,05/09/2018,2200.5,175000,100",
+                "C00002,petit,luc,05/09/2018,1800,90000,80"));
+
+        //Then
+        Assertions.assertThat(nbEmployes).isEqualTo(3);
+        Assertions.assertThat(metrics.getEmployesMisAJour()).isEqualTo(3);
+        Assertions.assertThat(metrics.getLignesInchangees()).isEqualTo(2);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from Employe", Long.class)).isEqualTo(5);
+
+        Map<String, Object> manager = employe("M00002");
+        Assertions.assertThat(manager.get("nom")).isEqualTo("Lefèvre");
+        Assertions.assertThat(manager.get("prenom")).isEqualTo("Zoé");
+        Assertions.assertThat(manager.get("nomRecherche")).isEqualTo("lefevre");
+        Assertions.assertThat(manager.get("prenomRecherche")).isEqualTo("zoe");
+
+        Map<String, Object> technicien = employe("T00001");
+        Assertions.assertThat(technicien.get("id")).isEqualTo(technicienAvant.get("id"));
+        Assertions.assertThat(((Number) technicien.get("salaire")).doubleValue()).isNotEqualTo(
+                ((Number) technicienAvant.get("salaire")).doubleValue());
+        Assertions.assertThat(jdbcTemplate.queryForMap("select grade, manager_id from Technicien where id = ?", technicien.get("id")))
+                .containsEntry("grade", 4).containsEntry("manager_id", manager.get("id"));
+        Assertions.assertThat(jdbcTemplate.queryForObject("select caAnnuel from Commercial c join Employe e on e.id = c.id "
+                + "where e.matricule = 'C00001'", Double.class)).isEqualTo(175000d);
+
+        // Les lignes inchangées ne sont pas réécrites //
+        Assertions.assertThat(employe("M00001")).containsEntry("nom", "durand");
+        Assertions.assertThat(jdbcTemplate.queryForObject("select caAnnuel from Commercial c join Employe e on e.id = c.id "
+                + "where e.matricule = 'C00002'", Double.class)).isEqualTo(90000d);
+
+        for (StatistiquesSalaires statistique : statistiquesSalairesService.getStatistiques()) {
+            Map<String, Object> attendu = jdbcTemplate.queryForMap("select count(e.salaire) as nb, sum(e.salaire) as somme "
+                    + "from Employe e join " + statistique.getTypeEmploye() + " t on t.id = e.id");
+            Assertions.assertThat(statistique.getNbEmployes()).isEqualTo(((Number) attendu.get("nb")).longValue());
+            Assertions.assertThat(statistique.getSommeSalaires()).isCloseTo(((Number) attendu.get("somme")).doubleValue(), Offset.offset(0.001));
+        }
+    }
+
+    private Map<String, Object> employe(String matricule) {
+        return jdbcTemplate.queryForMap("select id, nom, prenom, nomRecherche, prenomRecherche, salaire from Employe where matricule = ?", matricule);
+    }
+
+    private Path fichier(String nom, String... lignes) throws Exception {
+        Path fichier = dossier.newFile(nom).toPath();
+        Files.write(fichier, Arrays.asList(lignes), StandardCharsets.UTF_8);
+        return fichier;
+    }
+}
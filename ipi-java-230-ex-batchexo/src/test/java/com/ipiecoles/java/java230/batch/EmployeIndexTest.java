@@ -0,0 +1,44 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Manager;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+public class EmployeIndexTest {
+
+    @Test
+    public void testCoderMatricule() {
+        //Given
+
+        //When
+        int manager = Matricules.coder("M00001");
+        int technicien = Matricules.coder("T12345");
+        int commercial = Matricules.coder("C99999");
+        int incorrect = Matricules.coder("X12345");
+
+        //Then
+        Assertions.assertThat(manager).isEqualTo(1);
+        Assertions.assertThat(technicien).isEqualTo(112345);
+        Assertions.assertThat(commercial).isEqualTo(Matricules.NB_CODES - 1);
+        Assertions.assertThat(incorrect).isEqualTo(-1);
+    }
+
+    @Test
+    public void testEmpreinteEtDeclaration() {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2013, 6, 4), 1200.5, null);
+        Manager augmente = new Manager("durand", "jacques", "M00001", new LocalDate(2013, 6, 4), 1300.5, null);
+        EmployeIndex index = new EmployeIndex();
+        int code = Matricules.coder("M00001");
+
+        //When
+        index.declarer(code, EmployeIndex.empreinte(manager, null));
+
+        //Then
+        Assertions.assertThat(index.getId(code)).isEqualTo(EmployeIndex.NON_ENREGISTRE);
+        Assertions.assertThat(index.getEmpreinte(code)).isEqualTo(EmployeIndex.empreinte(manager, null));
+        Assertions.assertThat(EmployeIndex.empreinte(augmente, null)).isNotEqualTo(EmployeIndex.empreinte(manager, null));
+        Assertions.assertThat(index.getId(Matricules.coder("M00002"))).isEqualTo(EmployeIndex.ABSENT);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+
+public class EmployeLineFormatterTest {
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    private final EmployeLineFormatter formatter = new EmployeLineFormatter();
+
+    @Test
+    public void testLignesIdentiquesAuFichier() {
+        //Given
+        String[] lignes = {"M87654,durand,jacques,04/06/2013,1200.5", "T98765,dupont,pierre,12/03/2003,1700.5,5,M87654",
+                "C32154,aubert,michel,05/09/2018,2200.5,150000.0,100"};
+
+        for (String ligne : lignes) {
+            //When
+            LigneEmploye analysee = parser.parse(1, ligne);
+            Employe employe = analysee.getEmploye();
+            if (employe instanceof Technicien) {
+                ((Technicien) employe).setManager(new Manager("durand", "jacques", analysee.getMatriculeManager(),
+                        new LocalDate(2013, 6, 4), 1200.5, new HashSet<>()));
+            }
+
+            //Then
+            Assertions.assertThat(formatter.formater(employe)).isEqualTo(ligne + "\n");
+        }
+    }
+
+    @Test
+    public void testSalaireReimporteALIdentique() {
+        //Given
+        Random random = new Random(42L);
+
+        for (int i = 0; i < 100000; i++) {
+            String salaire = String.format(Locale.ROOT, "%.2f", 1000 + random.nextDouble() * 9000);
+            int grade = 1 + random.nextInt(5);
+            Employe technicien = parser.parse(1, "T00001,dupont,pierre,12/03/2003," + salaire + "," + grade + ",M00001").getEmploye();
+            Employe manager = parser.parse(1, "M00001,durand,jacques,04/06/2013," + salaire).getEmploye();
+            // Salaire qui ne vient pas d'un fichier, après une augmentation //
+            manager.augmenterSalaire(0.037);
+
+            //When
+            Employe technicienReimporte = parser.parse(1, formatter.formater(technicien).trim() + "M00001").getEmploye();
+            Employe managerReimporte = parser.parse(1, formatter.formater(manager).trim()).getEmploye();
+
+            //Then
+            Assertions.assertThat(technicienReimporte.getSalaire()).isEqualTo(technicien.getSalaire());
+            Assertions.assertThat(managerReimporte.getSalaire()).isCloseTo(manager.getSalaire(), Assertions.within(1e-9));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+public class EmployeLineParserTest {
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    @Test
+    public void testLignesValides() {
+        //Given
+        //When
+        LigneEmploye manager = parser.parse(1, "M87654,durand,jacques,04/06/2013,1200.5");
+        LigneEmploye technicien = parser.parse(2, "T98765,dupont,pierre,12/03/2003,1700.5,5,M87654");
+        LigneEmploye commercial = parser.parse(3, "C32154,aubert,michel,05/09/2018,2200.5,150000,100");
+
+        //Then
+        Assertions.assertThat(manager.getEmploye()).isInstanceOf(Manager.class);
+        Assertions.assertThat(manager.getEmploye().getDateEmbauche()).isEqualTo(new LocalDate(2013, 6, 4));
+        Assertions.assertThat(manager.getEmploye().getSalaire()).isEqualTo(1200.5 * 1.3);
+        Assertions.assertThat(technicien.getEmploye()).isInstanceOf(Technicien.class);
+        Assertions.assertThat(((Technicien) technicien.getEmploye()).getGrade()).isEqualTo(5);
+        Assertions.assertThat(technicien.getEmploye().getSalaire()).isEqualTo(1700.5 * 1.5);
+        Assertions.assertThat(technicien.getMatriculeManager()).isEqualTo("M87654");
+        Assertions.assertThat(((Commercial) commercial.getEmploye()).getCaAnnuel()).isEqualTo(150000d);
+        Assertions.assertThat(((Commercial) commercial.getEmploye()).getPerformance()).isEqualTo(100);
+    }
+
+    @Test
+    public void testMessagesErreur() {
+        checkErreur("XXXXXX,durand,jacques,04/06/2013,1200.5", "Type d'employé inconnu : X");
+        checkErreur("M12,durand,jacques,04/06/2013,1200.5", "la chaîne M12 ne respecte pas l'expression régulière ^[MTC][0-9]{5}$");
+        checkErreur("M12345,durand,jacques,", "La ligne manager ne contient pas 5 éléments mais 3");
+        checkErreur("M12345,durand,jacques,04/06/2013,1200.5,dfgdfg,dfgdfg", "La ligne manager ne contient pas 5 éléments mais 7");
+        checkErreur("M12345,durand,jacques,04/99/2013,1200.5", "04/99/2013 ne respecte pas le format de date dd/MM/yyyy");
+        checkErreur("M12345,durand,jacques,31/02/2013,1200.5", "31/02/2013 ne respecte pas le format de date dd/MM/yyyy");
+        checkErreur("M12345,durand,jacques,04/06/2013,sdf", "sdf n'est pas un nombre valide pour un salaire");
+        checkErreur("C12345,aubert,michel,05/09/2018,2200.5,150000.0", "La ligne commercial ne contient pas 7 éléments mais 6");
+        checkErreur("C12345,aubert,michel,05/09/XX,2200.5,150000.0,100", "05/09/XX ne respecte pas le format de date dd/MM/yyyy");
+        checkErreur("C12345,aubert,michel,05/09/2018,2200.5,xxx,100", "Le chiffre d'affaire du commercial est incorrect : xxx");
+        checkErreur("C12345,aubert,michel,05/09/2018,2200.5,150000.0,xxx", "La performance du commercial est incorrecte : xxx");
+        checkErreur("T12345,dupont,pierre,12/03/2003,1700.5,5", "La ligne technicien ne contient pas 7 éléments mais 6");
+        checkErreur("T12345,dupont,pierre,12/03/2003,xxx,5,M00001", "xxx n'est pas un nombre valide pour un salaire");
+        checkErreur("T12345,dupont,pierre,12/03/2003,1700.5,9,M00001", "Le grade doit être compris entre 1 et 5 : 9");
+        checkErreur("T12345,dupont,pierre,12/03/2003,1700.5,X,M00001", "Le grade du technicien est incorrect : X");
+        checkErreur("T12345,dupont,pierre,12/03/2003,1700.5,5,xxx", "la chaîne xxx ne respecte pas l'expression régulière ^M[0-9]{5}$");
+        checkErreur("", "La ligne est vide");
+    }
+
+    @Test
+    public void testCommentairesEtCodesErreur() {
+        //Given
+        //When
+        LigneEmploye commentaire = parser.parse(1, "# Ligne 12 DATE_INVALIDE : 04/99/2013 ne respecte pas le format de date dd/MM/yyyy");
+        LigneEmploye date = parser.parse(2, "M12345,durand,jacques,04/99/2013,1200.5");
+        LigneEmploye grade = parser.parse(3, "T12345,dupont,pierre,12/03/2003,1700.5,9,M00001");
+
+        //Then
+        Assertions.assertThat(commentaire.isIgnoree()).isTrue();
+        Assertions.assertThat(commentaire.isRejetee()).isFalse();
+        Assertions.assertThat(date.getCode()).isEqualTo(CodeErreur.DATE_INVALIDE);
+        Assertions.assertThat(grade.getCode()).isEqualTo(CodeErreur.GRADE_HORS_LIMITES);
+    }
+
+    @Test
+    public void testConversionDesNombresIdentiqueAParseDouble() {
+        CsvLineTokenizer tokenizer = new CsvLineTokenizer();
+        String[] valeurs = {"0", "-0", "1700.5", "0.1", "2200.55", "123456789.012345", ".5", "1.", "+3.25",
+                "1234567890123456789", "1e3", " 12.5", "0.30000000000000004"};
+        for (String valeur : valeurs) {
+            tokenizer.reset(valeur);
+            Assertions.assertThat(tokenizer.parseDouble(0)).as(valeur).isEqualTo(Double.parseDouble(valeur));
+        }
+    }
+
+    private void checkErreur(String ligne, String erreur) {
+        LigneEmploye resultat = parser.parse(1, ligne);
+        Assertions.assertThat(resultat.isRejetee()).as(ligne).isTrue();
+        Assertions.assertThat(resultat.getErreur()).isEqualTo(erreur);
+    }
+}
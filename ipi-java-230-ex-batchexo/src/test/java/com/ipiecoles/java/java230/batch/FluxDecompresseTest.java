@@ -0,0 +1,151 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class FluxDecompresseTest {
+
+    @Test
+    public void testGzipConcateneSurPlusieursBlocs() throws Exception {
+        //Given
+        StringBuilder contenu = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            contenu.append(String.format("T%05d,Öztürk,Zoé,12/03/2003,1700.5,5,M87654%n", i));
+        }
+        byte[] premier = contenu.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] second = "M87654,durand,jacques,04/06/2013,1200.5".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        gzip.write(gzip(premier));
+        gzip.write(gzip(second));
+
+        //When
+        ByteArrayOutputStream lu = new ByteArrayOutputStream();
+        try (InputStream flux = FluxDecompresse.ouvrir(new ByteArrayInputStream(gzip.toByteArray()))) {
+            byte[] tampon = new byte[10000];
+            int n;
+            while ((n = flux.read(tampon)) >= 0) {
+                lu.write(tampon, 0, n);
+            }
+        }
+
+        //Then
+        Assertions.assertThat(premier.length).isGreaterThan(4 * 1024 * 1024);
+        Assertions.assertThat(lu.toString("UTF-8")).isEqualTo(contenu + "M87654,durand,jacques,04/06/2013,1200.5");
+    }
+
+    @Test
+    public void testSourceDeFichiersCompressesOuNon() throws Exception {
+        //Given
+        byte[] contenu = ("\uFEFFM87654,durand,jacques,04/06/2013,1200.5\n"
+                + "T98765,dupont,Zoé,12/03/2003,1700.5,5,M87654\n"
+                + "XXXXXX,durand,jacques,04/06/2013,1200.5\n").getBytes(StandardCharsets.UTF_8);
+        Path csv = Files.createTempFile("employes", ".csv");
+        Path gz = Files.createTempFile("employes", ".csv.gz");
+        Path zip = Files.createTempFile("employes", ".zip");
+        Files.write(csv, contenu);
+        Files.write(gz, gzip(contenu));
+        try (ZipOutputStream sortie = new ZipOutputStream(Files.newOutputStream(zip))) {
+            sortie.putNextEntry(new ZipEntry("employes.csv"));
+            sortie.write(contenu);
+        }
+
+        //When
+        List<List<LigneEmploye>> resultats = new ArrayList<>();
+        try {
+            for (Path fichier : new Path[]{csv, gz, zip}) {
+                List<LigneEmploye> lignes = new ArrayList<>();
+                try (SourceLignes source = SourceLignes.ouvrir(fichier)) {
+                    new ParallelLineParser(new EmployeLineParser(), 2, 2).process(source, lignes::add);
+                }
+                resultats.add(lignes);
+            }
+        } finally {
+            Files.delete(csv);
+            Files.delete(gz);
+            Files.delete(zip);
+        }
+
+        //Then
+        for (List<LigneEmploye> lignes : resultats) {
+            Assertions.assertThat(lignes).extracting(LigneEmploye::getNumero).containsExactly(1L, 2L, 3L);
+            Assertions.assertThat(lignes.get(0).getEmploye().getMatricule()).isEqualTo("M87654");
+            Assertions.assertThat(lignes.get(1).getEmploye().getPrenom()).isEqualTo("Zoé");
+            Assertions.assertThat(lignes.get(2).isRejetee()).isTrue();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testErreurDeDecompression() throws Exception {
+        //Given
+        StringBuilder contenu = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            contenu.append(i).append(",dupont,pierre,").append(i * 7919 % 100003).append('\n');
+        }
+        byte[] gzip = gzip(contenu.toString().getBytes(StandardCharsets.UTF_8));
+        // Le fichier ne fournit que sa première moitié puis échoue par une exception non contrôlée //
+        InputStream defaillant = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (position >= gzip.length / 2) {
+                    throw new IllegalStateException("Fichier illisible");
+                }
+                int n = Math.min(len, gzip.length / 2 - position);
+                System.arraycopy(gzip, position, b, off, n);
+                position += n;
+                return n;
+            }
+        };
+
+        //When
+        IOException erreur = null;
+        IOException erreurSuivante = null;
+        try (InputStream flux = FluxDecompresse.ouvrir(defaillant)) {
+            byte[] tampon = new byte[10000];
+            try {
+                while (flux.read(tampon) >= 0) {
+                    // Lecture jusqu'à l'erreur //
+                }
+            } catch (IOException e) {
+                erreur = e;
+            }
+            try {
+                flux.read(tampon);
+            } catch (IOException e) {
+                erreurSuivante = e;
+            }
+        }
+
+        //Then
+        Assertions.assertThat(erreur).isNotNull().hasCauseInstanceOf(IllegalStateException.class);
+        Assertions.assertThat(erreurSuivante).isSameAs(erreur);
+    }
+
+    private static byte[] gzip(byte[] contenu) throws Exception {
+        ByteArrayOutputStream compresse = new ByteArrayOutputStream();
+        try (OutputStream sortie = new GZIPOutputStream(compresse)) {
+            sortie.write(contenu);
+        }
+        return compresse.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ImportCheckpointTest {
+
+    @Test
+    public void testLigneRepriseAvantPremierTechnicienEnAttente() {
+        //Given
+        ImportCheckpoint checkpoint = ImportCheckpoint.nouveau(1L);
+        checkpoint.ajoutee(ligne(10, "M00001"));
+        checkpoint.ajoutee(ligne(25, "M00002"));
+
+        //When
+        long sansAttente = checkpoint.calculerLigneReprise(0);
+        long avecAttente = checkpoint.calculerLigneReprise(12);
+
+        //Then
+        Assertions.assertThat(sansAttente).isEqualTo(25);
+        Assertions.assertThat(avecAttente).isEqualTo(11);
+    }
+
+    @Test
+    public void testReprise() {
+        //Given
+        ImportCheckpoint checkpoint = new ImportCheckpoint(1L, 11, 25, true);
+        MatriculeRegistry matricules = new MatriculeRegistry();
+        matricules.declarerEnBase(Matricules.coder("T00020"));
+
+        //When
+        boolean avantReprise = checkpoint.dejaTraitee(ligne(5, "M00001"), matricules);
+        boolean enregistree = checkpoint.dejaTraitee(technicien(20, "T00020"), matricules);
+        boolean enAttente = checkpoint.dejaTraitee(technicien(12, "T00012"), matricules);
+        boolean apres = checkpoint.dejaTraitee(technicien(26, "T00020"), matricules);
+        boolean upsert = new ImportCheckpoint(1L, 11, 25, false).dejaTraitee(technicien(20, "T00020"), matricules);
+
+        //Then
+        Assertions.assertThat(avantReprise).isTrue();
+        Assertions.assertThat(enregistree).isTrue();
+        Assertions.assertThat(enAttente).isFalse();
+        Assertions.assertThat(apres).isFalse();
+        Assertions.assertThat(upsert).isFalse();
+        Assertions.assertThat(checkpoint.calculerLigneReprise(0)).isEqualTo(25);
+    }
+
+    private static LigneEmploye ligne(long numero, String matricule) {
+        Manager manager = new Manager();
+        manager.setMatricule(matricule);
+        return LigneEmploye.valide(numero, matricule, manager, null);
+    }
+
+    private static LigneEmploye technicien(long numero, String matricule) {
+        Technicien technicien = new Technicien();
+        technicien.setMatricule(matricule);
+        return LigneEmploye.valide(numero, matricule, technicien, "M00001");
+    }
+}
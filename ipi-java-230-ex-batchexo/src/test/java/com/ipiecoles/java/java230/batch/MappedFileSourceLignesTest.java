@@ -0,0 +1,50 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedFileSourceLignesTest {
+
+    @Test
+    public void testLignesSurPlusieursSegments() throws Exception {
+        //Given
+        Path fichier = Files.createTempFile("employes", ".csv");
+        String contenu = "\uFEFFM87654,durand,jacques,04/06/2013,1200.5\r\n"
+                + "T98765,Öztürk,Zoé,12/03/2003,1700.5,5,M87654\n"
+                + "XXXXXX,durand,jacques,04/06/2013,1200.5\n"
+                + "C12345,martin,léa,01/01/2010,1500,10000,80";
+        Files.write(fichier, contenu.getBytes(StandardCharsets.UTF_8));
+        List<LigneEmploye> lignes = new ArrayList<>();
+
+        //When
+        long nbLignes;
+        try (MappedFileSourceLignes source = new MappedFileSourceLignes(fichier, 64)) {
+            nbLignes = new ParallelLineParser(new EmployeLineParser(), 2, 1).process(source, lignes::add);
+        } finally {
+            Files.delete(fichier);
+        }
+
+        //Then
+        Assertions.assertThat(nbLignes).isEqualTo(4);
+        Assertions.assertThat(lignes).extracting(LigneEmploye::getNumero).containsExactly(1L, 2L, 3L, 4L);
+        Assertions.assertThat(lignes.get(0).getEmploye().getMatricule()).isEqualTo("M87654");
+        Assertions.assertThat(lignes.get(1).getEmploye().getNom()).isEqualTo("Öztürk");
+        Assertions.assertThat(lignes.get(1).getEmploye().getPrenom()).isEqualTo("Zoé");
+        Assertions.assertThat(lignes.get(2).isRejetee()).isTrue();
+        Assertions.assertThat(lignes.get(2).getLigne()).isEqualTo("XXXXXX,durand,jacques,04/06/2013,1200.5");
+        Assertions.assertThat(lignes.get(3).getEmploye().getPrenom()).isEqualTo("léa");
+
+        // Une ligne détachée garde son contenu sans référencer la projection du fichier //
+        LigneEmploye detachee = lignes.get(1).detacher();
+        Assertions.assertThat(detachee.getNumero()).isEqualTo(2L);
+        Assertions.assertThat(detachee.getEmploye()).isSameAs(lignes.get(1).getEmploye());
+        Assertions.assertThat(detachee.getLigne()).isEqualTo("T98765,Öztürk,Zoé,12/03/2003,1700.5,5,M87654");
+        Assertions.assertThat(detachee.detacher()).isSameAs(detachee);
+    }
+}
@@ -0,0 +1,24 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class MatriculeRegistryTest {
+
+    @Test
+    public void testDoublonDansLeFichier() {
+        //Given
+        MatriculeRegistry registre = new MatriculeRegistry();
+
+        //When
+        boolean premiere = registre.lire(Matricules.coder("T00012"));
+        boolean autre = registre.lire(Matricules.coder("C00012"));
+        boolean doublon = registre.lire(Matricules.coder("T00012"));
+
+        //Then
+        Assertions.assertThat(premiere).isTrue();
+        Assertions.assertThat(autre).isTrue();
+        Assertions.assertThat(doublon).isFalse();
+        Assertions.assertThat(registre.isEnBase(Matricules.coder("T00012"))).isFalse();
+    }
+}
@@ -0,0 +1,53 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelLineParserTest {
+
+    @Test
+    public void testOrdreEtNumerosDeLigne() throws Exception {
+        //Given
+        StringBuilder fichier = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            fichier.append(i % 7 == 0 ? "XXXXXX,durand,jacques,04/06/2013,1200.5" : String.format("M%05d,durand,jacques,04/06/2013,1200.5", i)).append('\n');
+        }
+        List<LigneEmploye> lignes = new ArrayList<>();
+
+        //When
+        long nbLignes = new ParallelLineParser(new EmployeLineParser(), 4, 64)
+                .process(new ReaderSourceLignes(new BufferedReader(new StringReader(fichier.toString()))), lignes::add);
+
+        //Then
+        Assertions.assertThat(nbLignes).isEqualTo(10_000);
+        Assertions.assertThat(lignes).hasSize(10_000);
+        for (int i = 0; i < lignes.size(); i++) {
+            LigneEmploye ligne = lignes.get(i);
+            Assertions.assertThat(ligne.getNumero()).isEqualTo(i + 1);
+            Assertions.assertThat(ligne.isRejetee()).isEqualTo(i % 7 == 0);
+            if (!ligne.isRejetee()) {
+                Assertions.assertThat(ligne.getEmploye().getMatricule()).isEqualTo(String.format("M%05d", i));
+            }
+        }
+    }
+
+    @Test
+    public void testMatriculeManagerDuTechnicien() throws Exception {
+        //Given
+        String fichier = "M87654,durand,jacques,04/06/2013,1200.5\nT98765,dupont,pierre,12/03/2003,1700.5,5,M87654\n";
+        List<LigneEmploye> lignes = new ArrayList<>();
+
+        //When
+        new ParallelLineParser(new EmployeLineParser(), 2, 1).process(new ReaderSourceLignes(new BufferedReader(new StringReader(fichier))), lignes::add);
+
+        //Then
+        Assertions.assertThat(lignes).hasSize(2);
+        Assertions.assertThat(lignes.get(0).getMatriculeManager()).isNull();
+        Assertions.assertThat(lignes.get(1).getMatriculeManager()).isEqualTo("M87654");
+    }
+}
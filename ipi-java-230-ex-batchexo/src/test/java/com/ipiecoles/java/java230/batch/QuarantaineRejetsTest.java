@@ -0,0 +1,75 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.CodeErreur;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class QuarantaineRejetsTest {
+
+    private final EmployeLineParser parser = new EmployeLineParser();
+
+    @Test
+    public void testFichierReimportable() throws Exception {
+        //Given
+        Path fichier = Files.createTempFile("employes", ".rejets.csv");
+        LigneEmploye date = parser.parse(3, "M12345,durand,jacques,04/99/2013,1200.5");
+        LigneEmploye doublon = parser.parse(7, "C32154,aubert,michel,05/09/2018,2200.5,150000,100");
+
+        //When
+        List<String> lignes;
+        try {
+            try (QuarantaineRejets quarantaine = new QuarantaineRejets(fichier, 1, 0)) {
+                quarantaine.rejeter(date, date.getCode(), date.getErreur());
+                quarantaine.rejeter(doublon, CodeErreur.MATRICULE_EN_DOUBLE, "Le matricule C32154 est présent plusieurs fois dans le fichier");
+            }
+            lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(fichier);
+        }
+
+        //Then
+        Assertions.assertThat(lignes).hasSize(5);
+        Assertions.assertThat(lignes.get(1)).isEqualTo("# Ligne 3 DATE_INVALIDE : 04/99/2013 ne respecte pas le format de date dd/MM/yyyy");
+        Assertions.assertThat(lignes.get(2)).isEqualTo("M12345,durand,jacques,04/99/2013,1200.5");
+        Assertions.assertThat(lignes.get(3)).startsWith("# Ligne 7 MATRICULE_EN_DOUBLE : ");
+        List<LigneEmploye> reimport = lignes.stream().map(ligne -> parser.parse(1, ligne)).collect(Collectors.toList());
+        Assertions.assertThat(reimport).extracting(LigneEmploye::isIgnoree).containsExactly(true, true, false, true, false);
+        Assertions.assertThat(reimport.get(4).getEmploye().getMatricule()).isEqualTo("C32154");
+    }
+
+    @Test
+    public void testRepriseConserveLesRejetsDesLignesEnregistrees() throws Exception {
+        //Given
+        Path fichier = Files.createTempFile("employes", ".rejets.csv");
+        LigneEmploye avant = parser.parse(3, "X1");
+        LigneEmploye apres = parser.parse(8, "X2");
+        try (QuarantaineRejets quarantaine = new QuarantaineRejets(fichier, 10, 0)) {
+            quarantaine.rejeter(avant, avant.getCode(), avant.getErreur());
+            quarantaine.rejeter(apres, apres.getCode(), apres.getErreur());
+        }
+
+        //When
+        List<String> lignes;
+        try {
+            try (QuarantaineRejets quarantaine = new QuarantaineRejets(fichier, 10, 5)) {
+                // La ligne 3, relue par la reprise, n'est pas réécrite //
+                quarantaine.rejeter(avant, avant.getCode(), avant.getErreur());
+                quarantaine.rejeter(apres, apres.getCode(), apres.getErreur());
+            }
+            lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(fichier);
+        }
+
+        //Then
+        Assertions.assertThat(lignes).containsExactly(lignes.get(0),
+                "# Ligne 3 TYPE_INCONNU : Type d'employé inconnu : X", "X1",
+                "# Ligne 8 TYPE_INCONNU : Type d'employé inconnu : X", "X2");
+    }
+}
@@ -0,0 +1,55 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+public class ValidationFichierTest {
+
+    @Test
+    public void testResumeDesRejets() throws Exception {
+        //Given
+        String contenu = "# Fichier du 01/01/2018\n"
+                + "T98765,dupont,pierre,12/03/2003,1700.5,5,M87654\n"
+                + "M87654,durand,jacques,04/06/2013,1200.5\n"
+                + "M87654,durand,jacques,04/06/2013,1200.5\n"
+                + "M12345,durand,jacques,04/99/2013,1200.5\n"
+                + "T98764,dupont,pierre,12/03/2003,1700.5,5,M00001\n"
+                + "C32154,aubert,michel,05/09/2018,2200.5,150000,100";
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        ValidationFichier validation = new ValidationFichier(2, 2, 1, new PrintStream(sortie, true, "UTF-8"));
+
+        //When
+        try (SourceLignes source = new ReaderSourceLignes(new BufferedReader(new StringReader(contenu)))) {
+            validation.valider(source);
+        }
+
+        //Then
+        Assertions.assertThat(validation.getMetrics().getLignesLues()).isEqualTo(7);
+        Assertions.assertThat(validation.getMetrics().getLignesIgnorees()).isEqualTo(1);
+        Assertions.assertThat(validation.getMetrics().getLignesRejetees()).isEqualTo(2);
+        Assertions.assertThat(validation.getMetrics().getRejetsParErreur()).isEqualTo("DATE_INVALIDE 1, MATRICULE_EN_DOUBLE 1");
+        Assertions.assertThat(validation.getNbManagersHorsFichier()).isEqualTo(1);
+        Assertions.assertThat(sortie.toString("UTF-8")).isEqualTo(
+                "Ligne 4 : Le matricule M87654 est présent plusieurs fois dans le fichier => M87654,durand,jacques,04/06/2013,1200.5"
+                        + System.lineSeparator());
+        Assertions.assertThat(validation.rapport()).contains("Lignes valides        : 4");
+    }
+
+    @Test
+    public void testOptionInvalide() {
+        //Given
+
+        //When
+        int optionInvalide = ValidationFichier.executer("employes.csv", "--batch.import.threads=x");
+        int sansFichier = ValidationFichier.executer("--batch.import.threads=2");
+
+        //Then
+        Assertions.assertThat(optionInvalide).isEqualTo(ValidationFichier.ERREUR_LECTURE);
+        Assertions.assertThat(sansFichier).isEqualTo(ValidationFichier.ERREUR_LECTURE);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ipiecoles.java.java230.model;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class NomRechercheTest {
+
+    @Test
+    public void testNormaliser() {
+        //Given
+
+        //When
+        String ascii = NomRecherche.normaliser("DuPont");
+        String accents = NomRecherche.normaliser("Lefèvre-Hélène Çà");
+        String nul = NomRecherche.normaliser(null);
+
+        //Then
+        Assertions.assertThat(ascii).isEqualTo("dupont");
+        Assertions.assertThat(accents).isEqualTo("lefevre-helene ca");
+        Assertions.assertThat(nul).isNull();
+    }
+}
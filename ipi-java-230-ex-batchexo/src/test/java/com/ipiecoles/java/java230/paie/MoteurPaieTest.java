@@ -0,0 +1,47 @@
+package com.ipiecoles.java.java230.paie;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class MoteurPaieTest {
+
+    @Test
+    public void testResultatsIdentiquesAuxEntites() throws Exception {
+        //Given
+        Technicien technicien1 = new Technicien("dupont", "pierre", "T00001", new LocalDate(2003, 3, 12), 1700.5, 3);
+        Technicien technicien2 = new Technicien("martin", "léa", "T00002", new LocalDate(2017, 1, 1), 1500.0, 5);
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2013, 6, 4), 1200.5,
+                new HashSet<>(Arrays.asList(technicien1, technicien2)));
+        Commercial commercial = new Commercial("aubert", "michel", "C00001", new LocalDate(2018, 9, 5), 2200.5, 150000.3, 100);
+        Commercial petitCommercial = new Commercial("petit", "zoé", "C00002", new LocalDate(2018, 9, 5), 2200.5, 1000d, 50);
+        List<Employe> employes = Arrays.asList(manager, technicien1, technicien2, commercial, petitCommercial);
+        ColonnesEmployes colonnes = new ColonnesEmployes(2);
+        colonnes.ajouter(1, ColonnesEmployes.MANAGER, manager.getSalaire(), 2013, 0, 0, 2);
+        colonnes.ajouter(2, ColonnesEmployes.TECHNICIEN, technicien1.getSalaire(), 2003, 3, 0, 0);
+        colonnes.ajouter(3, ColonnesEmployes.TECHNICIEN, technicien2.getSalaire(), 2017, 5, 0, 0);
+        colonnes.ajouter(4, ColonnesEmployes.COMMERCIAL, commercial.getSalaire(), 2018, 0, 150000.3, 0);
+        colonnes.ajouter(5, ColonnesEmployes.COMMERCIAL, petitCommercial.getSalaire(), 2018, 0, 1000d, 0);
+
+        //When
+        RapportPaie rapport = MoteurPaie.calculer(colonnes, LocalDate.now());
+
+        //Then
+        Assertions.assertThat(rapport.size()).isEqualTo(employes.size());
+        double totalPrimes = 0;
+        for (int i = 0; i < employes.size(); i++) {
+            Assertions.assertThat(rapport.getPrimeAnnuelle(i)).isEqualTo(employes.get(i).getPrimeAnnuelle());
+            Assertions.assertThat(rapport.getNbConges(i)).isEqualTo(employes.get(i).getNbConges());
+            totalPrimes += employes.get(i).getPrimeAnnuelle();
+        }
+        Assertions.assertThat(rapport.getTotalPrimes()).isEqualTo(totalPrimes);
+    }
+}
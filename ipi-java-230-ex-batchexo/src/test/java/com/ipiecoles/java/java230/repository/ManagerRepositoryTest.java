@@ -0,0 +1,232 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.model.EmployeResume;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.service.LectureEnFlux;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Nombre de requêtes exécutées pour parcourir les équipes de tous les managers, sur une base H2 en mémoire
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(LectureEnFlux.class)
+@TestPropertySource(properties = {
+        "batch.lecture.detach-interval=50",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class ManagerRepositoryTest {
+
+    private static final int NB_MANAGERS = 120;
+
+    private static final int TAILLE_EQUIPE = 3;
+
+    private static final String[] NOMS = {"durand", "aubert", "martin", "petit"};
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LectureEnFlux lectureEnFlux;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < NB_MANAGERS; i++) {
+            Manager manager = entityManager.persist(new Manager(NOMS[i % NOMS.length], "jacques", String.format("M%05d", i),
+                    new LocalDate(2013, 6, 4), 1200.5, new HashSet<>()));
+            for (int j = 0; j < TAILLE_EQUIPE; j++) {
+                Technicien technicien = new Technicien("dupont", "pierre", String.format("T%03d%02d", i, j),
+                        new LocalDate(2003, 3, 12), 1700.5, 1 + j);
+                technicien.setManager(manager);
+                entityManager.persist(technicien);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testBatchSizeEquipe() {
+        //Given
+        List<Manager> managers = (List<Manager>) managerRepository.findAll();
+
+        //When
+        int nbTechniciens = 0;
+        for (Manager manager : managers) {
+            nbTechniciens += manager.getEquipe().size();
+        }
+
+        //Then
+        Assertions.assertThat(nbTechniciens).isEqualTo(NB_MANAGERS * TAILLE_EQUIPE);
+        // Une requête pour les managers, une par lot de 50 équipes //
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 3);
+    }
+
+    @Test
+    public void testFindAllWithEquipeRequetesParPage() {
+        //Given
+        int nbManagers = 0;
+
+        //When
+        for (int page = 0; page * 50 < NB_MANAGERS; page++) {
+            statistics.clear();
+            Page<Manager> managers = managerRepository.findAllWithEquipe(new PageRequest(page, 50));
+            for (Manager manager : managers) {
+                Assertions.assertThat(manager.getEquipe()).hasSize(TAILLE_EQUIPE);
+                Assertions.assertThat(manager.getPrimeAnnuelle()).isPositive();
+                Assertions.assertThat(manager.salaireEquipeGrade1()).isPositive();
+                nbManagers++;
+            }
+
+            //Then
+            Assertions.assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        }
+        Assertions.assertThat(nbManagers).isEqualTo(NB_MANAGERS);
+    }
+
+    @Test
+    public void testCountEquipeParManager() {
+        //Given
+
+        //When
+        List<Object[]> tailles = managerRepository.countEquipeParManager();
+
+        //Then
+        Assertions.assertThat(tailles).hasSize(NB_MANAGERS);
+        Assertions.assertThat(tailles).allMatch(taille -> ((Long) taille[1]) == TAILLE_EQUIPE);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeysetParId() {
+        //Given
+        List<Long> ids = new ArrayList<>();
+        Slice<Manager> page = managerRepository.findByIdGreaterThanOrderByIdAsc(0L, new PageRequest(0, 50));
+
+        //When
+        while (true) {
+            page.forEach(manager -> ids.add(manager.getId()));
+            if (!page.hasNext()) {
+                break;
+            }
+            page = managerRepository.findByIdGreaterThanOrderByIdAsc(ids.get(ids.size() - 1), new PageRequest(0, 50));
+        }
+
+        //Then
+        Assertions.assertThat(ids).hasSize(NB_MANAGERS).isSorted().doesNotHaveDuplicates();
+        // Une requête par page, sans comptage //
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testKeysetParNomEtId() {
+        //Given
+        List<Manager> managers = new ArrayList<>();
+        Slice<Manager> page = managerRepository.findNextByNomAndId("", 0L, new PageRequest(0, 50));
+
+        //When
+        while (true) {
+            managers.addAll(page.getContent());
+            if (!page.hasNext()) {
+                break;
+            }
+            Manager dernier = managers.get(managers.size() - 1);
+            page = managerRepository.findNextByNomAndId(dernier.getNom(), dernier.getId(), new PageRequest(0, 50));
+        }
+
+        //Then
+        Assertions.assertThat(managers).hasSize(NB_MANAGERS).doesNotHaveDuplicates()
+                .isSortedAccordingTo(Comparator.comparing(Manager::getNom).thenComparing(Manager::getId));
+        // L'index de la pagination est créé avec le schéma //
+        Assertions.assertThat(entityManager.getEntityManager().createNativeQuery("select COLUMN_NAME from INFORMATION_SCHEMA.INDEXES "
+                + "where INDEX_NAME = 'IDX_EMPLOYE_NOM_ID' order by ORDINAL_POSITION").getResultList()).containsExactly("NOM", "ID");
+    }
+
+    @Test
+    public void testLectureEnFlux() {
+        //Given
+        List<Manager> managers = new ArrayList<>();
+
+        //When
+        long nbManagers = lectureEnFlux.parcourir(() -> managerRepository.streamByDateEmbaucheBefore(new LocalDate(2020, 1, 1)),
+                managers::add);
+
+        //Then
+        Assertions.assertThat(nbManagers).isEqualTo(NB_MANAGERS);
+        Assertions.assertThat(managers).allMatch(manager -> !entityManager.getEntityManager().contains(manager));
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRechercheSansCasseNiAccents() {
+        //Given
+        entityManager.persist(new Manager("Lefèvre", "Hélène", "M99999", new LocalDate(2013, 6, 4), 1200.5, new HashSet<>()));
+        entityManager.flush();
+
+        //When
+        List<Manager> parNom = managerRepository.rechercherParNom("LEFEVRE");
+        List<Manager> parPrenom = managerRepository.rechercherParNomOuPrenom("helene");
+        List<Manager> durand = managerRepository.rechercherParNom("Durand");
+
+        //Then
+        Assertions.assertThat(parNom).extracting(Manager::getMatricule).containsExactly("M99999");
+        Assertions.assertThat(parPrenom).extracting(Manager::getMatricule).containsExactly("M99999");
+        Assertions.assertThat(parNom.get(0).getNomRecherche()).isEqualTo("lefevre");
+        Assertions.assertThat(durand).hasSize(NB_MANAGERS / NOMS.length);
+    }
+
+    @Test
+    public void testProjectionsSansEntites() {
+        //Given
+        List<EmployeResume> employes = new ArrayList<>();
+
+        //When
+        List<EmployeResume> durand = employeRepository.rechercherResumesParNom("DURAND");
+        Page<EmployeResume> premierePage = employeRepository.findAllResume(new PageRequest(0, 50));
+        Slice<EmployeResume> suivants = employeRepository.findResumeByIdGreaterThanOrderByIdAsc(premierePage.getContent().get(49).getId(), new PageRequest(0, 50));
+        long nbEmployes = lectureEnFlux.parcourir(() -> employeRepository.streamAllResume(), employes::add);
+
+        //Then
+        Assertions.assertThat(durand).hasSize(NB_MANAGERS / NOMS.length);
+        Assertions.assertThat(durand.get(0).getMatricule()).startsWith("M");
+        Assertions.assertThat(durand.get(0).getDateEmbauche()).isEqualTo(new LocalDate(2013, 6, 4));
+        Assertions.assertThat(premierePage.getTotalElements()).isEqualTo(NB_MANAGERS * (1 + TAILLE_EQUIPE));
+        Assertions.assertThat(suivants.getContent().get(0).getId()).isGreaterThan(premierePage.getContent().get(49).getId());
+        Assertions.assertThat(nbEmployes).isEqualTo(NB_MANAGERS * (1 + TAILLE_EQUIPE));
+        Assertions.assertThat(employes).extracting(EmployeResume::getId).isSorted();
+        // Aucune entité chargée dans le contexte de persistance //
+        Assertions.assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+    }
+}
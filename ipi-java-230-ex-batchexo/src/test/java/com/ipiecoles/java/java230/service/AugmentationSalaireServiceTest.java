@@ -0,0 +1,163 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Augmentations de salaire par tranches d'ids sur une base H2 en mémoire : les tranches de 3 ids obligent chaque
+ * augmentation à en traiter plusieurs. Chaque salaire est comparé à sa valeur avant l'augmentation.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({AugmentationSalaireService.class, StatistiquesSalairesService.class, CacheEmployes.class})
+@TestPropertySource(properties = {
+        "batch.augmentation.chunk-size=3",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class AugmentationSalaireServiceTest {
+
+    @Autowired
+    private AugmentationSalaireService augmentationSalaireService;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Manager manager;
+
+    // Salaire de chaque employé avant l'augmentation, par matricule //
+    private Map<String, Double> salairesAvant;
+
+    @Before
+    public void setUp() throws Exception {
+        // Les employés de chaque équipe sont dispersés dans les ids, entre ceux des autres équipes //
+        Manager[] managers = new Manager[2];
+        for (int m = 0; m < managers.length; m++) {
+            managers[m] = entityManager.persist(new Manager("durand", "jacques", String.format("M%05d", m),
+                    new LocalDate(2013, 6, 4), 2500.0 + m * 100, new HashSet<>()));
+        }
+        for (int i = 0; i < 12; i++) {
+            Technicien technicien = new Technicien("dupont", "pierre", String.format("T%05d", i), new LocalDate(2003, 3, 12),
+                    1500.0 + i * 10, 1 + i % 5);
+            technicien.setManager(managers[i % 2]);
+            entityManager.persist(technicien);
+            entityManager.persist(new Commercial("martin", "paul", String.format("C%05d", i), new LocalDate(2010, 1, 1),
+                    1400.0 + i * 25, 20000.0, 100));
+        }
+        entityManager.persist(new Technicien("petit", "luc", "T00099", new LocalDate(2003, 3, 12), 1800.0, 3));
+        entityManager.flush();
+        manager = managers[0];
+        statistiquesSalairesService.recalculer();
+        salairesAvant = salaires();
+    }
+
+    @Test
+    public void testAugmenterManager() {
+        //Given
+        Predicate<String> equipe = matricule -> matricule.equals("M00000")
+                || matricule.startsWith("T") && !matricule.equals("T00099") && Integer.parseInt(matricule.substring(1)) % 2 == 0;
+
+        //When
+        ResultatAugmentation resultat = augmentationSalaireService.augmenterManager(manager.getId(), 0.1);
+
+        //Then
+        Assertions.assertThat(resultat.getNbEmployes()).isEqualTo(7);
+        Assertions.assertThat(resultat.getNbPaquets()).isGreaterThan(1);
+        verifierSalaires(equipe, 0.1);
+        verifierStatistiques();
+    }
+
+    @Test
+    public void testAugmenterManagers() {
+        //Given
+        Predicate<String> equipes = matricule -> matricule.startsWith("M") || matricule.startsWith("T") && !matricule.equals("T00099");
+
+        //When
+        ResultatAugmentation resultat = augmentationSalaireService.augmenterManagers(0.1);
+
+        //Then
+        Assertions.assertThat(resultat.getNbEmployes()).isEqualTo(14);
+        Assertions.assertThat(resultat.getNbPaquets()).isGreaterThan(1);
+        verifierSalaires(equipes, 0.1);
+        verifierStatistiques();
+    }
+
+    @Test
+    public void testAugmenterGradeEtType() {
+        //Given
+        Predicate<String> grade3 = matricule -> matricule.equals("T00099")
+                || matricule.startsWith("T") && Integer.parseInt(matricule.substring(1)) % 5 == 2;
+
+        //When
+        ResultatAugmentation resultatGrade = augmentationSalaireService.augmenterGrade(3, 0.1);
+        verifierSalaires(grade3, 0.1);
+        salairesAvant = salaires();
+        ResultatAugmentation resultatType = augmentationSalaireService.augmenterType(Commercial.class, 0.05);
+
+        //Then
+        Assertions.assertThat(resultatGrade.getNbEmployes()).isEqualTo(3);
+        Assertions.assertThat(resultatType.getNbEmployes()).isEqualTo(12);
+        Assertions.assertThat(resultatType.getNbPaquets()).isGreaterThan(1);
+        verifierSalaires(matricule -> matricule.startsWith("C"), 0.05);
+        verifierStatistiques();
+    }
+
+    /**
+     * Vérifie que les employés concernés ont été augmentés une fois et que les autres n'ont pas changé
+     */
+    private void verifierSalaires(Predicate<String> augmentes, double pourcentage) {
+        Map<String, Double> salairesApres = salaires();
+        Assertions.assertThat(salairesApres.keySet()).isEqualTo(salairesAvant.keySet());
+        for (Map.Entry<String, Double> salaire : salairesAvant.entrySet()) {
+            double attendu = augmentes.test(salaire.getKey()) ? salaire.getValue() * (1 + pourcentage) : salaire.getValue();
+            Assertions.assertThat(salairesApres.get(salaire.getKey())).as(salaire.getKey()).isCloseTo(attendu, Offset.offset(0.0001));
+        }
+    }
+
+    /**
+     * Compare les statistiques tenues à jour par les augmentations à un calcul complet
+     */
+    private void verifierStatistiques() {
+        for (StatistiquesSalaires statistique : statistiquesSalairesService.getStatistiques()) {
+            Map<String, Object> attendu = jdbcTemplate.queryForMap("select count(e.salaire) as nb, sum(e.salaire) as somme, "
+                    + "min(e.salaire) as mini, max(e.salaire) as maxi from Employe e join " + statistique.getTypeEmploye() + " t on t.id = e.id");
+            Assertions.assertThat(statistique.getNbEmployes()).isEqualTo(((Number) attendu.get("nb")).longValue());
+            Assertions.assertThat(statistique.getSommeSalaires()).isCloseTo(((Number) attendu.get("somme")).doubleValue(), Offset.offset(0.001));
+            Assertions.assertThat(statistique.getSalaireMin()).isCloseTo(((Number) attendu.get("mini")).doubleValue(), Offset.offset(0.0001));
+            Assertions.assertThat(statistique.getSalaireMax()).isCloseTo(((Number) attendu.get("maxi")).doubleValue(), Offset.offset(0.0001));
+        }
+    }
+
+    private Map<String, Double> salaires() {
+        Map<String, Double> salaires = new HashMap<>();
+        jdbcTemplate.query("select matricule, salaire from Employe", rs -> {
+            salaires.put(rs.getString(1), rs.getDouble(2));
+        });
+        return salaires;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Lectures par id et par matricule servies par le cache, et invalidation après une écriture JDBC,
+ * sur une base H2 en mémoire. Chaque appel de repository est validé dans sa propre transaction.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CacheEmployes.class, EmployeService.class, StatistiquesSalairesService.class})
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class CacheEmployesTest {
+
+    @Autowired
+    private EmployeService employeService;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private CacheEmployes cacheEmployes;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Employe employe;
+
+    @Before
+    public void setUp() throws Exception {
+        employe = employeRepository.save(new Commercial("martin", "paul", "C00001", new LocalDate(2010, 1, 1), 1400.0, 20000.0, 100));
+        cacheEmployes.invalider();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        employeRepository.deleteAll();
+        cacheEmployes.invalider();
+    }
+
+    @Test
+    public void testFindByIdEnCache() {
+        //Given
+        employeService.findById(employe.getId());
+
+        //When
+        Employe lu = employeService.findById(employe.getId());
+
+        //Then
+        Assertions.assertThat(lu.getMatricule()).isEqualTo("C00001");
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Assertions.assertThat(cacheEmployes.getEmployesTrouves()).isEqualTo(1);
+        Assertions.assertThat(cacheEmployes.getEmployesManques()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindByMatriculeEnCache() {
+        //Given
+        employeRepository.findByMatricule("C00001");
+
+        //When
+        Employe lu = employeRepository.findByMatricule("C00001");
+
+        //Then
+        Assertions.assertThat(lu.getId()).isEqualTo(employe.getId());
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Assertions.assertThat(cacheEmployes.getRequetesTrouvees()).isEqualTo(1);
+        Assertions.assertThat(cacheEmployes.getRequetesManquees()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvaliderApresEcritureJdbc() {
+        //Given
+        employeService.findById(employe.getId());
+        jdbcTemplate.update("update Employe set salaire = 2000.0 where id = ?", employe.getId());
+
+        //When
+        cacheEmployes.invaliderApresTransaction();
+        Employe lu = employeService.findById(employe.getId());
+
+        //Then
+        Assertions.assertThat(lu.getSalaire()).isEqualTo(2000.0);
+    }
+}
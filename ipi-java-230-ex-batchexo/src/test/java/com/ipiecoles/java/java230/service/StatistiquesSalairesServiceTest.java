@@ -0,0 +1,111 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistiques des salaires tenues à jour par les écritures d'employés, comparées à un calcul complet
+ * sur une base H2 en mémoire
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import({StatistiquesSalairesService.class, EmployeService.class, AugmentationSalaireService.class, CacheEmployes.class})
+@TestPropertySource(properties = {
+        "batch.augmentation.chunk-size=7",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"})
+public class StatistiquesSalairesServiceTest {
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private EmployeService employeService;
+
+    @Autowired
+    private AugmentationSalaireService augmentationSalaireService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Technicien technicienPlusRiche;
+
+    @Before
+    public void setUp() throws Exception {
+        Manager manager = entityManager.persist(new Manager("durand", "jacques", "M00001", new LocalDate(2013, 6, 4), 2500.0, new HashSet<>()));
+        for (int i = 0; i < 20; i++) {
+            Technicien technicien = new Technicien("dupont", "pierre", String.format("T%05d", i), new LocalDate(2003, 3, 12), 1500.0 + i * 10, 1 + i % 5);
+            technicien.setManager(manager);
+            technicienPlusRiche = entityManager.persist(technicien);
+            entityManager.persist(new Commercial("martin", "paul", String.format("C%05d", i), new LocalDate(2010, 1, 1), 1400.0 + i * 25, 20000.0, 100));
+        }
+        entityManager.flush();
+        statistiquesSalairesService.recalculer();
+    }
+
+    @Test
+    public void testStatistiquesTenuesAJour() {
+        //Given
+        employeService.creerEmploye(new Commercial("petit", "anne", "C99999", new LocalDate(2015, 1, 1), 9000.0, 0.0, 100));
+        entityManager.flush();
+
+        //When
+        employeService.deleteEmploye(technicienPlusRiche.getId());
+        entityManager.flush();
+        augmentationSalaireService.augmenterGrade(3, 0.1);
+        augmentationSalaireService.augmenterType(Commercial.class, 0.05);
+        List<StatistiquesSalaires> statistiques = statistiquesSalairesService.getStatistiques();
+
+        //Then
+        Assertions.assertThat(statistiques).hasSize(StatistiquesSalairesService.TYPES.length);
+        for (StatistiquesSalaires statistique : statistiques) {
+            Map<String, Object> attendu = jdbcTemplate.queryForMap("select count(e.salaire) as nb, sum(e.salaire) as somme, "
+                    + "min(e.salaire) as mini, max(e.salaire) as maxi from Employe e join " + statistique.getTypeEmploye() + " t on t.id = e.id");
+            Assertions.assertThat(statistique.getNbEmployes()).isEqualTo(((Number) attendu.get("nb")).longValue());
+            Assertions.assertThat(statistique.getSommeSalaires()).isCloseTo(((Number) attendu.get("somme")).doubleValue(), Offset.offset(0.001));
+            Assertions.assertThat(statistique.getSalaireMin()).isEqualTo(((Number) attendu.get("mini")).doubleValue());
+            Assertions.assertThat(statistique.getSalaireMax()).isEqualTo(((Number) attendu.get("maxi")).doubleValue());
+        }
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isCloseTo(
+                jdbcTemplate.queryForObject("select avg(salaire) from Employe", Double.class), Offset.offset(0.001));
+    }
+
+    @Test
+    public void testFindEmployePlusRiches() {
+        //Given
+        Double salaireMoyen = jdbcTemplate.queryForObject("select avg(salaire) from Employe", Double.class);
+
+        //When
+        List<Employe> employes = employeService.findEmployePlusRiches();
+
+        //Then
+        Assertions.assertThat(employes).isNotEmpty();
+        Assertions.assertThat(employes).allMatch(e -> e.getSalaire() > salaireMoyen);
+        Assertions.assertThat(employes).hasSize(jdbcTemplate.queryForObject(
+                "select count(*) from Employe where salaire > ?", Integer.class, salaireMoyen));
+        Assertions.assertThat(employes.get(0).getSalaire()).isEqualTo(2500.0);
+    }
+}